@@ -0,0 +1,50 @@
+package com.swiftlogistics.cms_adapter.config;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.amqp.support.postprocessor.GZipPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Chooses the wire format of outgoing messages per exchange.
+ * Exchanges listed in binary-exchanges are consumed by services running the
+ * codec layer and get CBOR, gzipped above the size threshold. Everything else
+ * keeps getting plain JSON. Listeners accept both, negotiated by content-type
+ * and content-encoding.
+ */
+@Component
+public class MessageCodec {
+
+    private final MessageConverter messageConverter;
+    private final Set<String> binaryExchanges;
+    private final int compressThresholdBytes;
+    private final GZipPostProcessor compressor = new GZipPostProcessor();
+
+    public MessageCodec(MessageConverter messageConverter,
+                        @Value("${cms.messaging.binary-exchanges:}") Set<String> binaryExchanges,
+                        @Value("${cms.messaging.compress-threshold-bytes:1024}") int compressThresholdBytes) {
+        this.messageConverter = messageConverter;
+        this.binaryExchanges = binaryExchanges;
+        this.compressThresholdBytes = compressThresholdBytes;
+    }
+
+    /**
+     * Convert a payload for the given exchange
+     */
+    public Message encode(String exchange, Object payload, MessageProperties properties) {
+        if (!binaryExchanges.contains(exchange)) {
+            properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+            return messageConverter.toMessage(payload, properties);
+        }
+
+        properties.setContentType(CborMessageConverter.CONTENT_TYPE);
+        Message message = messageConverter.toMessage(payload, properties);
+        return message.getBody().length >= compressThresholdBytes
+                ? compressor.postProcessMessage(message)
+                : message;
+    }
+}
@@ -2,12 +2,18 @@ package com.swiftlogistics.cms_adapter.config;
 
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
 import org.springframework.amqp.core.DirectExchange;
 import org.springframework.amqp.core.Queue;
 import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Configuration
 public class RabbitMQConfig {
 
@@ -25,6 +31,25 @@ public class RabbitMQConfig {
     public static final String DLQ_SUFFIX = ".dlq";
     public static final String DLX_SUFFIX = ".dlx";
 
+    public static String deadLetterQueue(String queue) {
+        return queue + DLQ_SUFFIX;
+    }
+
+    // Delayed retry: failed orders wait in order-created.retry.<n> until its TTL dead-letters
+    // them back to order-created; after the last tier they are parked in order-created.parking
+    public static final List<String> RETRY_QUEUES = List.of(QUEUE_ORDER_CREATED);
+    public static final String RETRY_SUFFIX = ".retry.";
+    public static final String PARKING_SUFFIX = ".parking";
+    public static final String RETRY_COUNT_HEADER = "x-retry-count";
+
+    public static String retryQueue(String queue, int tier) {
+        return queue + RETRY_SUFFIX + tier;
+    }
+
+    public static String parkingQueue(String queue) {
+        return queue + PARKING_SUFFIX;
+    }
+
     @Bean
     public DirectExchange orderCreatedExchange() {
         return new DirectExchange(EXCHANGE_ORDER_CREATED, true, false);
@@ -45,12 +70,50 @@ public class RabbitMQConfig {
 
     @Bean
     public Queue billingUpdatesQueue() {
+        // Single active consumer, as declared by the orchestrator that consumes it
         return QueueBuilder.durable(QUEUE_BILLING_UPDATES)
                 .withArgument("x-dead-letter-exchange", EXCHANGE_BILLING_UPDATES + DLX_SUFFIX)
                 .withArgument("x-dead-letter-routing-key", QUEUE_BILLING_UPDATES + DLQ_SUFFIX)
+                .singleActiveConsumer()
                 .build();
     }
 
+    /**
+     * Dead-letter exchanges and queues the two queues above point at; the
+     * orchestrator declares the same ones
+     */
+    @Bean
+    public Declarables deadLetterTopology() {
+        DirectExchange orderCreatedDlx = new DirectExchange(EXCHANGE_ORDER_CREATED + DLX_SUFFIX, true, false);
+        DirectExchange billingUpdatesDlx = new DirectExchange(EXCHANGE_BILLING_UPDATES + DLX_SUFFIX, true, false);
+        Queue orderCreatedDlq = QueueBuilder.durable(deadLetterQueue(QUEUE_ORDER_CREATED)).build();
+        Queue billingUpdatesDlq = QueueBuilder.durable(deadLetterQueue(QUEUE_BILLING_UPDATES)).build();
+        return new Declarables(
+                orderCreatedDlx, billingUpdatesDlx, orderCreatedDlq, billingUpdatesDlq,
+                BindingBuilder.bind(orderCreatedDlq).to(orderCreatedDlx).with(deadLetterQueue(QUEUE_ORDER_CREATED)),
+                BindingBuilder.bind(billingUpdatesDlq).to(billingUpdatesDlx).with(deadLetterQueue(QUEUE_BILLING_UPDATES)));
+    }
+
+    /**
+     * Retry tiers and parking queue for the order-created queue, published to
+     * through the default exchange
+     */
+    @Bean
+    public Declarables retryQueues(@Value("${cms.retry.delays-ms:2000,15000,60000}") long[] delaysMs) {
+        List<Declarable> queues = new ArrayList<>();
+        for (String queue : RETRY_QUEUES) {
+            for (int tier = 1; tier <= delaysMs.length; tier++) {
+                queues.add(QueueBuilder.durable(retryQueue(queue, tier))
+                        .ttl((int) delaysMs[tier - 1])
+                        .deadLetterExchange("")
+                        .deadLetterRoutingKey(queue)
+                        .build());
+            }
+            queues.add(QueueBuilder.durable(parkingQueue(queue)).build());
+        }
+        return new Declarables(queues);
+    }
+
     @Bean
     public Binding bindingOrderCreated() {
         return BindingBuilder.bind(orderCreatedQueue()).to(orderCreatedExchange()).with(ROUTING_KEY_ORDER_CREATED);
@@ -1,9 +1,17 @@
 package com.swiftlogistics.cms_adapter.config;
 
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.config.ContainerCustomizer;
+import org.springframework.amqp.rabbit.config.RetryInterceptorBuilder;
 import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.amqp.support.postprocessor.DelegatingDecompressingPostProcessor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.retry.interceptor.RetryOperationsInterceptor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 
@@ -19,15 +27,40 @@ public class RabbitTemplateConfig {
     }
 
     @Bean
-    public RabbitTemplate rabbitTemplate(Jackson2JsonMessageConverter converter) {
+    public RabbitTemplate rabbitTemplate(MessageConverter converter) {
         RabbitTemplate template = new RabbitTemplate(connectionFactory);
         template.setMessageConverter(converter);
         template.setMandatory(true); // ensure return callback triggered if undeliverable
         return template;
     }
 
+    /**
+     * Converter picked by content-type: CBOR from the orchestrator, JSON otherwise
+     */
     @Bean
-    public Jackson2JsonMessageConverter messageConverter(ObjectMapper objectMapper) {
-        return new Jackson2JsonMessageConverter(objectMapper);
+    public MessageConverter messageConverter(ObjectMapper objectMapper) {
+        Jackson2JsonMessageConverter json = new Jackson2JsonMessageConverter(objectMapper);
+        ContentTypeDelegatingMessageConverter converter = new ContentTypeDelegatingMessageConverter(json);
+        converter.addDelegate(MessageProperties.CONTENT_TYPE_JSON, json);
+        converter.addDelegate(CborMessageConverter.CONTENT_TYPE, new CborMessageConverter());
+        return converter;
+    }
+
+    /**
+     * Listeners inflate gzip/deflate/zip content-encodings before conversion.
+     * A failed order is handed straight to the retry queues; the SOAP call is
+     * never retried by sleeping on the listener thread.
+     */
+    @Bean
+    public ContainerCustomizer<SimpleMessageListenerContainer> listenerContainerCustomizer(
+            TieredRetryRecoverer tieredRetryRecoverer) {
+        RetryOperationsInterceptor retry = RetryInterceptorBuilder.stateless()
+                .maxAttempts(1)
+                .recoverer(tieredRetryRecoverer)
+                .build();
+        return container -> {
+            container.setAfterReceivePostProcessors(new DelegatingDecompressingPostProcessor());
+            container.setAdviceChain(retry);
+        };
     }
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+package com.swiftlogistics.cms_adapter.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.retry.MessageRecoverer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Moves a failed message to the next retry queue, or to the parking queue
+ * once all tiers are used, counting attempts in the x-retry-count header.
+ * The delivery is acked once the broker confirmed the republish; if it is
+ * nacked, returned or not confirmed in time the message is requeued instead.
+ */
+@Component
+@Slf4j
+public class TieredRetryRecoverer implements MessageRecoverer {
+
+    private static final String LAST_ERROR_HEADER = "x-last-error";
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final RabbitTemplate rabbitTemplate;
+    private final int tiers;
+    private final long confirmTimeoutMs;
+
+    public TieredRetryRecoverer(RabbitTemplate rabbitTemplate,
+                                @Value("${cms.retry.delays-ms:2000,15000,60000}") long[] delaysMs,
+                                @Value("${cms.retry.confirm-timeout-ms:5000}") long confirmTimeoutMs) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.tiers = delaysMs.length;
+        this.confirmTimeoutMs = confirmTimeoutMs;
+    }
+
+    @Override
+    public void recover(Message message, Throwable cause) {
+        MessageProperties properties = message.getMessageProperties();
+        String queue = properties.getConsumerQueue();
+        if (!RabbitMQConfig.RETRY_QUEUES.contains(queue)) {
+            throw new AmqpRejectAndDontRequeueException("No retry tiers for queue " + queue, cause);
+        }
+
+        Object count = properties.getHeaders().get(RabbitMQConfig.RETRY_COUNT_HEADER);
+        int retries = (count instanceof Number number ? number.intValue() : 0) + 1;
+        Throwable rootCause = cause;
+        while (rootCause.getCause() != null && rootCause.getCause() != rootCause) {
+            rootCause = rootCause.getCause();
+        }
+        String error = rootCause.toString();
+
+        if (properties.getDeliveryMode() == null) {
+            properties.setDeliveryMode(properties.getReceivedDeliveryMode() != null
+                    ? properties.getReceivedDeliveryMode() : MessageDeliveryMode.PERSISTENT);
+        }
+        properties.setHeader(RabbitMQConfig.RETRY_COUNT_HEADER, retries);
+        properties.setHeader(LAST_ERROR_HEADER,
+                error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+
+        if (retries <= tiers) {
+            send(RabbitMQConfig.retryQueue(queue, retries), message);
+            log.warn("Order failed, retrying later: queue={}, retry={}/{}, error={}", queue, retries, tiers, error);
+        } else {
+            send(RabbitMQConfig.parkingQueue(queue), message);
+            log.error("Order failed after {} retries, parked: queue={}", tiers, queue, rootCause);
+        }
+    }
+
+    private void send(String queue, Message message) {
+        CorrelationData correlation = new CorrelationData(UUID.randomUUID().toString());
+        rabbitTemplate.send("", queue, message, correlation);
+        try {
+            CorrelationData.Confirm confirm = correlation.getFuture().get(confirmTimeoutMs, TimeUnit.MILLISECONDS);
+            if (!confirm.isAck() || correlation.getReturned() != null) {
+                throw new AmqpException("Failed order was not accepted by " + queue);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmqpException("Interrupted while waiting for a confirm from " + queue, e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new AmqpException("No confirm for failed order sent to " + queue, e);
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.swiftlogistics.cms_adapter.consumer;
 import com.swiftlogistics.cms_adapter.model.BillingUpdateMessage;
 import com.swiftlogistics.cms_adapter.wsdl.SubmitOrderResponse;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
 
 import com.swiftlogistics.cms_adapter.config.RabbitMQConfig;
@@ -23,10 +25,23 @@ public class OrderConsumer {
 
     private final CmsSoapClient cmsSoapClient;
     private final BillingUpdatePublisher billingUpdatePublisher;
-
+    private final ProcessedMessageIds processedMessageIds;
+
+    /**
+     * Submit an order to CMS and report the billing result. Any failure, e.g.
+     * CMS being unreachable, propagates to the container, which moves the
+     * order to the next retry queue. An order whose message id was already
+     * processed is skipped, so a message published again is not billed twice.
+     */
     @RabbitListener(queues = RabbitMQConfig.QUEUE_ORDER_CREATED)
-    public void consumeOrder(OrderMessage orderMessage) {
+    public void consumeOrder(OrderMessage orderMessage,
+                             @Header(name = AmqpHeaders.MESSAGE_ID, required = false) String messageId) {
         log.info(" Received Order from Orchestrator: {}", orderMessage);
+        if (processedMessageIds.contains(messageId)) {
+            log.info("Skipping duplicate order message: messageId={}, orderId={}",
+                    messageId, orderMessage.getOrderId());
+            return;
+        }
 
         // Call CMS SOAP service
         SubmitOrderResponse response = cmsSoapClient.submitOrder(
@@ -43,5 +58,6 @@ public class OrderConsumer {
                 .timestamp(LocalDateTime.now())
                 .build();
         billingUpdatePublisher.publishAck(message);
+        processedMessageIds.add(messageId);
     }
 }
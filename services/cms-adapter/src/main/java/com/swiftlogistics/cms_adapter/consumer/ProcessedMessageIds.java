@@ -0,0 +1,38 @@
+package com.swiftlogistics.cms_adapter.consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Message ids of recently processed orders, so an order the orchestrator's
+ * outbox publishes again is not submitted to CMS twice. Only the most recent
+ * ids are kept, in memory: this catches redeliveries and relay retries, not
+ * duplicates that arrive after a restart.
+ */
+@Component
+public class ProcessedMessageIds {
+
+    private final Map<String, Boolean> ids;
+
+    public ProcessedMessageIds(@Value("${cms.dedup.max-ids:100000}") int maxIds) {
+        this.ids = new LinkedHashMap<>(1024, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > maxIds;
+            }
+        };
+    }
+
+    public synchronized boolean contains(String messageId) {
+        return messageId != null && ids.containsKey(messageId);
+    }
+
+    public synchronized void add(String messageId) {
+        if (messageId != null) {
+            ids.put(messageId, Boolean.TRUE);
+        }
+    }
+}
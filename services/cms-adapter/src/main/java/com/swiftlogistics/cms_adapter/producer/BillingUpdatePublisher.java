@@ -1,9 +1,11 @@
 package com.swiftlogistics.cms_adapter.producer;
 
 import com.swiftlogistics.cms_adapter.model.BillingUpdateMessage;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.stereotype.Service;
 
+import com.swiftlogistics.cms_adapter.config.MessageCodec;
 import com.swiftlogistics.cms_adapter.config.RabbitMQConfig;
 
 import lombok.RequiredArgsConstructor;
@@ -15,12 +17,13 @@ import lombok.extern.slf4j.Slf4j;
 public class BillingUpdatePublisher {
 
     private final RabbitTemplate rabbitTemplate;
+    private final MessageCodec messageCodec;
 
     public void publishAck(BillingUpdateMessage message) {
-        rabbitTemplate.convertAndSend(
+        rabbitTemplate.send(
                 RabbitMQConfig.EXCHANGE_BILLING_UPDATES,
                 RabbitMQConfig.ROUTING_KEY_BILLING_UPDATES,
-                message // Send the entire message object as the message body
+                messageCodec.encode(RabbitMQConfig.EXCHANGE_BILLING_UPDATES, message, new MessageProperties())
         );
 
         log.info("Published CMS ACK: {}", message);
@@ -0,0 +1,74 @@
+package com.swiftlogistics.orchestrator.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.swiftlogistics.orchestrator.model.Customer;
+import com.swiftlogistics.orchestrator.repository.CustomerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bounded, TTL-evicting cache in front of CustomerRepository for the order creation path.
+ * Cached customers are shared instances and must not be modified by callers.
+ * Hit/miss counts are published as the "cache.*" metrics with cache=customers.
+ */
+@Component
+@Slf4j
+public class CustomerCache {
+
+    private final CustomerRepository customerRepository;
+    private final Cache<String, Customer> cache;
+
+    public CustomerCache(CustomerRepository customerRepository,
+                         MeterRegistry meterRegistry,
+                         @Value("${orchestrator.cache.customers.max-size:10000}") long maxSize,
+                         @Value("${orchestrator.cache.customers.ttl-seconds:300}") long ttlSeconds) {
+        this.customerRepository = customerRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "customers");
+    }
+
+    /**
+     * Get a customer, loading it from MongoDB on a miss
+     */
+    public Optional<Customer> findById(String customerId) {
+        return Optional.ofNullable(cache.get(customerId,
+                id -> customerRepository.findById(id).orElse(null)));
+    }
+
+    /**
+     * Get several customers, loading all misses with a single $in query
+     */
+    public Map<String, Customer> findAllById(Collection<String> customerIds) {
+        return cache.getAll(customerIds, missing -> {
+            Map<String, Customer> loaded = new HashMap<>();
+            customerRepository.findAllById(List.copyOf(missing))
+                    .forEach(customer -> loaded.put(customer.getCustomerId(), customer));
+            return loaded;
+        });
+    }
+
+    /**
+     * Drop a customer after it has been written
+     */
+    public void invalidate(String customerId) {
+        if (customerId != null) {
+            cache.invalidate(customerId);
+            log.debug("Customer cache entry invalidated: customerId={}", customerId);
+        }
+    }
+}
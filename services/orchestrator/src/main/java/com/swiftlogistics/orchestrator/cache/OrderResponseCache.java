@@ -0,0 +1,91 @@
+package com.swiftlogistics.orchestrator.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Serialized JSON of order and order-event responses, ready to be written as is.
+ * Order entries are dropped together with the order's version in
+ * OrderVersionCache, event entries when the EventWriter stores new events for
+ * the order. An order response is only kept if the order's ETag did not change
+ * while it was read, an event response only if the order's event count did not. The TTL bounds staleness from writes on other nodes.
+ */
+@Component
+public class OrderResponseCache {
+
+    public record CachedResponse(String etag, byte[] body) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final Cache<String, CachedResponse> orders;
+    private final Cache<String, byte[]> events;
+
+    public OrderResponseCache(ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${orchestrator.cache.order-responses.max-size:20000}") long maxSize,
+                              @Value("${orchestrator.cache.order-responses.ttl-seconds:5}") long ttlSeconds) {
+        this.objectMapper = objectMapper;
+        this.orders = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.events = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, orders, "order-responses");
+        CaffeineCacheMetrics.monitor(meterRegistry, events, "order-event-responses");
+    }
+
+    public CachedResponse getOrder(String orderId) {
+        return orders.getIfPresent(orderId);
+    }
+
+    public CachedResponse putOrder(String orderId, String etag, Object order) throws JsonProcessingException {
+        CachedResponse response = new CachedResponse(etag, objectMapper.writeValueAsBytes(order));
+        orders.put(orderId, response);
+        return response;
+    }
+
+    public byte[] getEvents(String orderId) {
+        return events.getIfPresent(orderId);
+    }
+
+    public byte[] putEvents(String orderId, Object orderEvents) throws JsonProcessingException {
+        byte[] body = objectMapper.writeValueAsBytes(orderEvents);
+        events.put(orderId, body);
+        return body;
+    }
+
+    public void invalidateOrder(String orderId) {
+        orders.invalidate(orderId);
+    }
+
+    /**
+     * Drop a response put earlier, unless it has been replaced since
+     */
+    public void invalidateOrder(String orderId, CachedResponse response) {
+        orders.asMap().remove(orderId, response);
+    }
+
+    public void invalidateEvents(String orderId) {
+        events.invalidate(orderId);
+    }
+
+    /**
+     * Drop an event response put earlier, unless it has been replaced since
+     */
+    public void invalidateEvents(String orderId, byte[] body) {
+        events.asMap().remove(orderId, body);
+    }
+}
@@ -0,0 +1,121 @@
+package com.swiftlogistics.orchestrator.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.swiftlogistics.orchestrator.model.Order;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.HexFormat;
+
+/**
+ * Strong ETags for orders, built from version and updatedAt.
+ * Tags are cached per order and dropped whenever this node writes the order
+ * or sees a status broadcast for it; the short TTL bounds staleness from
+ * writes on other nodes. A miss reads only version and updatedAt, never the
+ * whole document. Dropping an order's version also drops its cached response.
+ */
+@Component
+public class OrderVersionCache {
+
+    private final MongoTemplate mongoTemplate;
+    private final OrderResponseCache orderResponseCache;
+    private final Cache<String, String> etags;
+
+    public OrderVersionCache(MongoTemplate mongoTemplate,
+                             OrderResponseCache orderResponseCache,
+                             MeterRegistry meterRegistry,
+                             @Value("${orchestrator.cache.order-versions.max-size:50000}") long maxSize,
+                             @Value("${orchestrator.cache.order-versions.ttl-seconds:5}") long ttlSeconds) {
+        this.mongoTemplate = mongoTemplate;
+        this.orderResponseCache = orderResponseCache;
+        this.etags = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, etags, "order-versions");
+    }
+
+    /**
+     * ETag of an order, or null if it does not exist
+     */
+    public String getETag(String orderId) {
+        return etags.get(orderId, id -> {
+            Query query = new Query(Criteria.where("orderId").is(id));
+            query.fields().include("version", "updatedAt");
+            Order order = mongoTemplate.findOne(query, Order.class);
+            return order == null ? null : etagOf(order);
+        });
+    }
+
+    /**
+     * ETag of a customer's order list, changing whenever an order is added or changes.
+     * Built from one aggregate over the customer's orders: their count, the sum of
+     * their versions and the latest updatedAt, as every write bumps both.
+     * The variant names the representation, e.g. the requested fields.
+     */
+    public String getCustomerETag(String customerId, String variant) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("customerId").is(customerId)),
+                Aggregation.group()
+                        .count().as("count")
+                        .sum("version").as("versions")
+                        .max("updatedAt").as("updatedAt"));
+        Document totals = mongoTemplate.aggregate(aggregation, Order.class, Document.class).getUniqueMappedResult();
+
+        String state = "0";
+        if (totals != null) {
+            Date updatedAt = totals.getDate("updatedAt");
+            state = totals.get("count", Number.class).longValue()
+                    + "-" + totals.get("versions", Number.class).longValue()
+                    + "-" + Long.toHexString(updatedAt == null ? 0 : updatedAt.getTime());
+        }
+        MessageDigest digest = sha256();
+        digest.update((variant == null ? "" : variant).getBytes(StandardCharsets.UTF_8));
+        digest.update(state.getBytes(StandardCharsets.UTF_8));
+        return "\"c-" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+    }
+
+    public void invalidate(String orderId) {
+        if (orderId != null) {
+            etags.invalidate(orderId);
+            orderResponseCache.invalidateOrder(orderId);
+        }
+    }
+
+    /**
+     * ETag of a loaded order; needs at least version and updatedAt
+     */
+    public static String etagOf(Order order) {
+        return "\"" + versionOf(order) + "\"";
+    }
+
+    private static String versionOf(Order order) {
+        LocalDateTime updatedAt = order.getUpdatedAt();
+        long updatedAtMillis = updatedAt == null ? 0 : updatedAt.toInstant(ZoneOffset.UTC).toEpochMilli();
+        return (order.getVersion() == null ? 0 : order.getVersion()) + "-" + Long.toHexString(updatedAtMillis);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
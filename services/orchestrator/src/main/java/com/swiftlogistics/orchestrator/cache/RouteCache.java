@@ -0,0 +1,52 @@
+package com.swiftlogistics.orchestrator.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.swiftlogistics.orchestrator.model.Route;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Size-bounded cache of routes keyed by routeId.
+ * Routes are never modified after they are created, so entries need no
+ * invalidation. An orderId to routeId index lets driver views find the
+ * route of an order before the order itself has been read.
+ */
+@Component
+public class RouteCache {
+
+    private final Cache<String, Route> routes;
+    private final Cache<String, String> routeIdsByOrder;
+
+    public RouteCache(MeterRegistry meterRegistry,
+                      @Value("${orchestrator.cache.routes.max-size:20000}") long maxSize) {
+        this.routes = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        this.routeIdsByOrder = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, routes, "routes");
+    }
+
+    public void put(String orderId, Route route) {
+        routes.put(route.getRouteId(), route);
+        if (orderId != null) {
+            routeIdsByOrder.put(orderId, route.getRouteId());
+        }
+    }
+
+    public Route get(String routeId) {
+        return routeId == null ? null : routes.getIfPresent(routeId);
+    }
+
+    /**
+     * Cached route of an order, or null if unknown
+     */
+    public Route getForOrder(String orderId) {
+        return get(routeIdsByOrder.getIfPresent(orderId));
+    }
+}
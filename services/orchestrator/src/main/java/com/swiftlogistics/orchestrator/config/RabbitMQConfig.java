@@ -1,9 +1,16 @@
 package com.swiftlogistics.orchestrator.config;
 
 import org.springframework.amqp.core.*;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @Configuration
 public class RabbitMQConfig {
 
@@ -33,10 +40,58 @@ public class RabbitMQConfig {
     public static final String ROUTING_KEY_ROUTE_PLANNING = "route.planning";
     public static final String ROUTING_KEY_ROUTE_UPDATE = "route.update";
 
+    // SSE broadcast: every orchestrator node delivers status updates to its own SSE clients
+    public static final String EXCHANGE_SSE_BROADCAST = "sse-broadcast.exchange";
+    public static final String QUEUE_SSE_BROADCAST_PREFIX = "sse-broadcast.";
+    public static final int SSE_BROADCAST_TTL_MS = 30_000;
+
+    // Driver push: every node delivers driver assignments to the STOMP sessions connected to it
+    public static final String EXCHANGE_DRIVER_PUSH = "driver-push.exchange";
+    public static final String QUEUE_DRIVER_PUSH_PREFIX = "driver-push.";
+
+    // Driver presence: every node applies login and logout changes to its own presence registry
+    public static final String EXCHANGE_DRIVER_PRESENCE = "driver-presence.exchange";
+    public static final String QUEUE_DRIVER_PRESENCE_PREFIX = "driver-presence.";
+
     // Dead-letter queues
     public static final String DLQ_SUFFIX = ".dlq";
     public static final String DLX_SUFFIX = ".dlx";
 
+    // Durable work queues ("stages") and the exchange each one dead-letters through
+    public static final Map<String, String> STAGE_EXCHANGES = stageExchanges();
+
+    private static Map<String, String> stageExchanges() {
+        Map<String, String> stages = new LinkedHashMap<>();
+        stages.put(QUEUE_ORDER_CREATED, EXCHANGE_ORDER_CREATED);
+        stages.put(QUEUE_BILLING_UPDATES, EXCHANGE_BILLING_UPDATES);
+        stages.put(QUEUE_WAREHOUSE_QUEUE, EXCHANGE_WAREHOUSE);
+        stages.put(QUEUE_WAREHOUSE_UPDATES, EXCHANGE_WAREHOUSE);
+        stages.put(QUEUE_ROUTE_PLANNING, EXCHANGE_ROUTE);
+        stages.put(QUEUE_ROUTE_UPDATES, EXCHANGE_ROUTE);
+        return Collections.unmodifiableMap(stages);
+    }
+
+    public static String deadLetterQueue(String queue) {
+        return queue + DLQ_SUFFIX;
+    }
+
+    // Delayed retry: failed messages wait in <queue>.retry.<n> until its TTL dead-letters
+    // them back to <queue>; after the last tier they are parked in <queue>.parking
+    public static final List<String> RETRY_QUEUES =
+            List.of(QUEUE_BILLING_UPDATES, QUEUE_WAREHOUSE_UPDATES, QUEUE_ROUTE_UPDATES);
+    public static final String RETRY_SUFFIX = ".retry.";
+    public static final String PARKING_SUFFIX = ".parking";
+    public static final String RETRY_COUNT_HEADER = "x-retry-count";
+    public static final String LAST_ERROR_HEADER = "x-last-error";
+
+    public static String retryQueue(String queue, int tier) {
+        return queue + RETRY_SUFFIX + tier;
+    }
+
+    public static String parkingQueue(String queue) {
+        return queue + PARKING_SUFFIX;
+    }
+
     // === EXCHANGES ===
     
     @Bean
@@ -59,7 +114,27 @@ public class RabbitMQConfig {
         return new DirectExchange(EXCHANGE_ROUTE, true, false);
     }
 
+    @Bean
+    public FanoutExchange sseBroadcastExchange() {
+        return new FanoutExchange(EXCHANGE_SSE_BROADCAST, true, false);
+    }
+
+    @Bean
+    public FanoutExchange driverPushExchange() {
+        return new FanoutExchange(EXCHANGE_DRIVER_PUSH, true, false);
+    }
+
+    @Bean
+    public FanoutExchange driverPresenceExchange() {
+        return new FanoutExchange(EXCHANGE_DRIVER_PRESENCE, true, false);
+    }
+
     // === QUEUES ===
+
+    // The update queues (billing, warehouse and route updates) have a single active
+    // consumer across all orchestrator nodes, so one order's updates are never
+    // applied by two nodes at once or out of order. Every service declaring them
+    // must pass the same arguments.
     
     @Bean
     public Queue orderCreatedQueue() {
@@ -74,6 +149,7 @@ public class RabbitMQConfig {
         return QueueBuilder.durable(QUEUE_BILLING_UPDATES)
                 .withArgument("x-dead-letter-exchange", EXCHANGE_BILLING_UPDATES + DLX_SUFFIX)
                 .withArgument("x-dead-letter-routing-key", QUEUE_BILLING_UPDATES + DLQ_SUFFIX)
+                .singleActiveConsumer()
                 .build();
     }
     
@@ -90,6 +166,7 @@ public class RabbitMQConfig {
         return QueueBuilder.durable(QUEUE_WAREHOUSE_UPDATES)
                 .withArgument("x-dead-letter-exchange", EXCHANGE_WAREHOUSE + DLX_SUFFIX)
                 .withArgument("x-dead-letter-routing-key", QUEUE_WAREHOUSE_UPDATES + DLQ_SUFFIX)
+                .singleActiveConsumer()
                 .build();
     }
     
@@ -106,9 +183,68 @@ public class RabbitMQConfig {
         return QueueBuilder.durable(QUEUE_ROUTE_UPDATES)
                 .withArgument("x-dead-letter-exchange", EXCHANGE_ROUTE + DLX_SUFFIX)
                 .withArgument("x-dead-letter-routing-key", QUEUE_ROUTE_UPDATES + DLQ_SUFFIX)
+                .singleActiveConsumer()
                 .build();
     }
 
+    // One exclusive queue per node, deleted when the node disconnects; stale updates expire
+    @Bean
+    public Queue sseBroadcastQueue() {
+        return new AnonymousQueue(new Base64UrlNamingStrategy(QUEUE_SSE_BROADCAST_PREFIX),
+                Map.of("x-message-ttl", SSE_BROADCAST_TTL_MS));
+    }
+
+    @Bean
+    public Queue driverPushQueue() {
+        return new AnonymousQueue(new Base64UrlNamingStrategy(QUEUE_DRIVER_PUSH_PREFIX),
+                Map.of("x-message-ttl", SSE_BROADCAST_TTL_MS));
+    }
+
+    @Bean
+    public Queue driverPresenceQueue() {
+        return new AnonymousQueue(new Base64UrlNamingStrategy(QUEUE_DRIVER_PRESENCE_PREFIX),
+                Map.of("x-message-ttl", SSE_BROADCAST_TTL_MS));
+    }
+
+    /**
+     * Dead-letter exchange and queue for every stage, matching the
+     * x-dead-letter-* arguments of the work queues above
+     */
+    @Bean
+    public Declarables deadLetterTopology() {
+        List<Declarable> declarables = new ArrayList<>();
+        Map<String, DirectExchange> exchanges = new LinkedHashMap<>();
+        STAGE_EXCHANGES.forEach((queue, exchange) -> {
+            DirectExchange dlx = exchanges.computeIfAbsent(exchange,
+                    name -> new DirectExchange(name + DLX_SUFFIX, true, false));
+            Queue dlq = QueueBuilder.durable(deadLetterQueue(queue)).build();
+            declarables.add(dlq);
+            declarables.add(BindingBuilder.bind(dlq).to(dlx).with(deadLetterQueue(queue)));
+        });
+        declarables.addAll(0, exchanges.values());
+        return new Declarables(declarables);
+    }
+
+    /**
+     * Retry tiers and parking queue for each consumed work queue. The retry queues
+     * are published to through the default exchange and have no consumers.
+     */
+    @Bean
+    public Declarables retryQueues(@Value("${orchestrator.retry.delays-ms:1000,10000,60000}") long[] delaysMs) {
+        List<Declarable> queues = new ArrayList<>();
+        for (String queue : RETRY_QUEUES) {
+            for (int tier = 1; tier <= delaysMs.length; tier++) {
+                queues.add(QueueBuilder.durable(retryQueue(queue, tier))
+                        .ttl((int) delaysMs[tier - 1])
+                        .deadLetterExchange("")
+                        .deadLetterRoutingKey(queue)
+                        .build());
+            }
+            queues.add(QueueBuilder.durable(parkingQueue(queue)).build());
+        }
+        return new Declarables(queues);
+    }
+
     // === BINDINGS ===
     
     @Bean
@@ -140,4 +276,19 @@ public class RabbitMQConfig {
     public Binding bindingRouteUpdates() {
         return BindingBuilder.bind(routeUpdatesQueue()).to(routeExchange()).with(ROUTING_KEY_ROUTE_UPDATE);
     }
+
+    @Bean
+    public Binding bindingSseBroadcast() {
+        return BindingBuilder.bind(sseBroadcastQueue()).to(sseBroadcastExchange());
+    }
+
+    @Bean
+    public Binding bindingDriverPush() {
+        return BindingBuilder.bind(driverPushQueue()).to(driverPushExchange());
+    }
+
+    @Bean
+    public Binding bindingDriverPresence() {
+        return BindingBuilder.bind(driverPresenceQueue()).to(driverPresenceExchange());
+    }
 }
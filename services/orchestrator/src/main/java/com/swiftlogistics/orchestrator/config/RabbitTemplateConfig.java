@@ -1,15 +1,34 @@
 package com.swiftlogistics.orchestrator.config;
 
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.config.ContainerCustomizer;
+import org.springframework.amqp.rabbit.config.RetryInterceptorBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.amqp.support.postprocessor.DelegatingDecompressingPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.retry.interceptor.RetryOperationsInterceptor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 
 @Configuration
 public class RabbitTemplateConfig {
 
+    // Listener container factory delivering messages in batches
+    public static final String BATCH_LISTENER_FACTORY = "batchListenerContainerFactory";
+
+    private static final int DEFAULT_PREFETCH = 250;
+    private static final String PREFETCH_PROPERTY_PREFIX = "orchestrator.listeners.prefetch.";
+
     private final CachingConnectionFactory connectionFactory;
 
     public RabbitTemplateConfig(CachingConnectionFactory connectionFactory) {
@@ -19,16 +38,83 @@ public class RabbitTemplateConfig {
     }
 
     @Bean
-    public RabbitTemplate rabbitTemplate(Jackson2JsonMessageConverter converter) {
+    public RabbitTemplate rabbitTemplate(MessageConverter converter) {
         RabbitTemplate template = new RabbitTemplate(connectionFactory);
         template.setMessageConverter(converter);
         template.setMandatory(true); // ensure return callback triggered if undeliverable
+        template.setUsePublisherConnection(true); // broker flow control must not block consumers
         return template;
     }
 
+    /**
+     * Converter picked by content-type: CBOR or JSON; anything else, e.g. messages
+     * from the Python adapters without a content-type, is read as JSON
+     */
     @Bean
-    public Jackson2JsonMessageConverter messageConverter(ObjectMapper objectMapper) {
-        return new Jackson2JsonMessageConverter(objectMapper);
+    public MessageConverter messageConverter(ObjectMapper objectMapper) {
+        Jackson2JsonMessageConverter json = new Jackson2JsonMessageConverter(objectMapper);
+        ContentTypeDelegatingMessageConverter converter = new ContentTypeDelegatingMessageConverter(json);
+        converter.addDelegate(MessageProperties.CONTENT_TYPE_JSON, json);
+        converter.addDelegate(CborMessageConverter.CONTENT_TYPE, new CborMessageConverter());
+        return converter;
+    }
+
+    /**
+     * Listeners inflate gzip/deflate/zip content-encodings before conversion.
+     * A listener that throws is not retried in place: its message is handed to
+     * the tiered retry queues right away, so listener threads never back off.
+     */
+    @Bean
+    public ContainerCustomizer<SimpleMessageListenerContainer> listenerContainerCustomizer(
+            TieredRetryRecoverer tieredRetryRecoverer) {
+        RetryOperationsInterceptor retry = RetryInterceptorBuilder.stateless()
+                .maxAttempts(1)
+                .recoverer(tieredRetryRecoverer)
+                .build();
+        return container -> {
+            container.setAfterReceivePostProcessors(new DelegatingDecompressingPostProcessor());
+            container.setAdviceChain(retry);
+        };
+    }
+
+    /**
+     * Batch listeners receive up to batch-size messages, or fewer once no message
+     * arrived for batch-receive-timeout-ms. The listener acks the batch itself,
+     * so a message whose retry republish fails is requeued on its own.
+     */
+    @Bean(BATCH_LISTENER_FACTORY)
+    public SimpleRabbitListenerContainerFactory batchListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ContainerCustomizer<SimpleMessageListenerContainer> listenerContainerCustomizer,
+            @Value("${orchestrator.listeners.batch-size:100}") int batchSize,
+            @Value("${orchestrator.listeners.batch-receive-timeout-ms:200}") long receiveTimeoutMs,
+            Environment environment) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setContainerCustomizer(container -> {
+            listenerContainerCustomizer.configure(container);
+            // OrderUpdateBatcher recovers each message itself; recovering the whole batch
+            // here would republish messages that were already applied or republished
+            container.setAdviceChain();
+            // Per-stage override: orchestrator.listeners.prefetch.<queue>
+            for (String queue : container.getQueueNames()) {
+                Integer prefetch = environment.getProperty(PREFETCH_PROPERTY_PREFIX + queue, Integer.class);
+                if (prefetch != null) {
+                    container.setPrefetchCount(prefetch);
+                }
+            }
+        });
+        // The update queues have a single active consumer across nodes, so more consumers
+        // would only wait; parallelism comes from the order stripes
+        factory.setConcurrentConsumers(1);
+        factory.setMaxConcurrentConsumers(1);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(receiveTimeoutMs);
+        factory.setPrefetchCount(Math.max(batchSize, DEFAULT_PREFETCH));
+        return factory;
     }
 }
 
@@ -0,0 +1,173 @@
+package com.swiftlogistics.orchestrator.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.retry.MessageBatchRecoverer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Hands failed messages to the broker for a delayed retry instead of sleeping
+ * on the listener thread. The n-th failure of a message republishes it to
+ * <queue>.retry.<n>, whose TTL dead-letters it back to the work queue; once
+ * every tier is used up the message goes to <queue>.parking. The number of
+ * retries so far travels in the x-retry-count header.
+ * The original delivery is acked only after the broker confirmed the republish;
+ * if it is nacked, returned or not confirmed within confirm-timeout-ms the
+ * exception reaches the container and the message is requeued.
+ */
+@Component
+@Slf4j
+public class TieredRetryRecoverer implements MessageBatchRecoverer {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final RabbitTemplate rabbitTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int tiers;
+    private final long confirmTimeoutMs;
+
+    public TieredRetryRecoverer(RabbitTemplate rabbitTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${orchestrator.retry.delays-ms:1000,10000,60000}") long[] delaysMs,
+                                @Value("${orchestrator.retry.confirm-timeout-ms:5000}") long confirmTimeoutMs) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.meterRegistry = meterRegistry;
+        this.tiers = delaysMs.length;
+        this.confirmTimeoutMs = confirmTimeoutMs;
+    }
+
+    @Override
+    public void recover(Message message, Throwable cause) {
+        retry(message, cause);
+    }
+
+    /**
+     * Send a failed message to its next retry tier, or to parking once every
+     * tier is used up; returns the queue it was sent to
+     */
+    public String retry(Message message, Throwable cause) {
+        MessageProperties properties = message.getMessageProperties();
+        String queue = properties.getConsumerQueue();
+        if (!RabbitMQConfig.RETRY_QUEUES.contains(queue)) {
+            throw new AmqpRejectAndDontRequeueException("No retry tiers for queue " + queue, cause);
+        }
+
+        int retries = retryCount(properties) + 1;
+        keepPersistent(properties);
+        Throwable rootCause = rootCause(cause);
+        properties.setHeader(RabbitMQConfig.RETRY_COUNT_HEADER, retries);
+        properties.setHeader(RabbitMQConfig.LAST_ERROR_HEADER, describe(rootCause));
+
+        if (retries <= tiers) {
+            String retryQueue = RabbitMQConfig.retryQueue(queue, retries);
+            send(retryQueue, message);
+            meterRegistry.counter("rabbit.listener.recovered", "queue", queue, "outcome", "retry").increment();
+            log.warn("Message failed, retrying later: queue={}, messageId={}, retry={}/{}, error={}",
+                    queue, properties.getMessageId(), retries, tiers, rootCause.toString());
+            return retryQueue;
+        }
+        String parkingQueue = RabbitMQConfig.parkingQueue(queue);
+        send(parkingQueue, message);
+        meterRegistry.counter("rabbit.listener.recovered", "queue", queue, "outcome", "parked").increment();
+        log.error("Message failed after {} retries, parked: queue={}, messageId={}",
+                tiers, queue, properties.getMessageId(), rootCause);
+        return parkingQueue;
+    }
+
+    /**
+     * A failed batch is retried message by message
+     */
+    @Override
+    public void recover(List<Message> messages, Throwable cause) {
+        messages.forEach(message -> recover(message, cause));
+    }
+
+    /**
+     * Park a message that can never succeed, e.g. one that cannot be converted
+     */
+    public void park(Message message, Throwable cause) {
+        MessageProperties properties = message.getMessageProperties();
+        keepPersistent(properties);
+        properties.setHeader(RabbitMQConfig.LAST_ERROR_HEADER, describe(rootCause(cause)));
+        send(RabbitMQConfig.parkingQueue(properties.getConsumerQueue()), message);
+        meterRegistry.counter("rabbit.listener.recovered",
+                "queue", properties.getConsumerQueue(), "outcome", "parked").increment();
+        log.error("Unprocessable message parked: queue={}, messageId={}",
+                properties.getConsumerQueue(), properties.getMessageId(), cause);
+    }
+
+    /**
+     * Send a message that did not fail itself to the retry or parking queue an
+     * earlier update of its order went to, so it stays behind that update. Its
+     * retry count is left alone.
+     */
+    public void holdBack(Message message, String destination) {
+        MessageProperties properties = message.getMessageProperties();
+        keepPersistent(properties);
+        send(destination, message);
+        meterRegistry.counter("rabbit.listener.recovered",
+                "queue", properties.getConsumerQueue(), "outcome", "held").increment();
+        log.info("Message held back behind a failed update: queue={}, messageId={}, destination={}",
+                properties.getConsumerQueue(), properties.getMessageId(), destination);
+    }
+
+    /**
+     * Publish to a queue and wait until the broker has taken the message
+     */
+    private void send(String queue, Message message) {
+        CorrelationData correlation = new CorrelationData(UUID.randomUUID().toString());
+        rabbitTemplate.send("", queue, message, correlation);
+        String messageId = message.getMessageProperties().getMessageId();
+        try {
+            CorrelationData.Confirm confirm = correlation.getFuture().get(confirmTimeoutMs, TimeUnit.MILLISECONDS);
+            if (!confirm.isAck() || correlation.getReturned() != null) {
+                throw new AmqpException("Failed message was not accepted by " + queue + ": messageId=" + messageId);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmqpException("Interrupted while waiting for a confirm from " + queue, e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new AmqpException("No confirm for failed message sent to " + queue + ": messageId=" + messageId, e);
+        }
+    }
+
+    private static int retryCount(MessageProperties properties) {
+        Object count = properties.getHeaders().get(RabbitMQConfig.RETRY_COUNT_HEADER);
+        return count instanceof Number number ? number.intValue() : 0;
+    }
+
+    // Inbound properties only carry the received delivery mode
+    private static void keepPersistent(MessageProperties properties) {
+        if (properties.getDeliveryMode() == null) {
+            properties.setDeliveryMode(properties.getReceivedDeliveryMode() != null
+                    ? properties.getReceivedDeliveryMode() : MessageDeliveryMode.PERSISTENT);
+        }
+    }
+
+    private static Throwable rootCause(Throwable cause) {
+        Throwable root = cause;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root;
+    }
+
+    private static String describe(Throwable cause) {
+        String text = cause.toString();
+        return text.length() > MAX_ERROR_LENGTH ? text.substring(0, MAX_ERROR_LENGTH) : text;
+    }
+}
@@ -1,10 +1,12 @@
 package com.swiftlogistics.orchestrator.controller;
 
+import com.swiftlogistics.orchestrator.cache.CustomerCache;
 import com.swiftlogistics.orchestrator.model.Customer;
 import com.swiftlogistics.orchestrator.model.Driver;
 import com.swiftlogistics.orchestrator.dto.LoginRequest;
 import com.swiftlogistics.orchestrator.repository.CustomerRepository;
 import com.swiftlogistics.orchestrator.repository.DriverRepository;
+import com.swiftlogistics.orchestrator.service.DriverPresenceRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -22,6 +24,8 @@ import org.springframework.web.bind.annotation.RestController;
 public class AuthController {
   private final CustomerRepository customerRepository;
   private final DriverRepository driverRepository;
+  private final CustomerCache customerCache;
+  private final DriverPresenceRegistry driverPresenceRegistry;
 
   //  Mock Auth functionality
   @PostMapping("/customer")
@@ -57,7 +61,7 @@ public class AuthController {
 
     driver.setAvailable(true);
 
-    driverRepository.save(driver);
+    driverPresenceRegistry.setAvailable(driver, true);
 
     driver.setPassword(null);
     return ResponseEntity.ok(driver);
@@ -76,7 +80,7 @@ public class AuthController {
 
     driver.setAvailable(false);
 
-    driverRepository.save(driver);
+    driverPresenceRegistry.setAvailable(driver, false);
 
     driver.setPassword(null);
     return ResponseEntity.ok("Logged out successfully");
@@ -94,6 +98,7 @@ public class AuthController {
       return ResponseEntity.status(400).body("Customer already exists");
     }
     Customer savedCustomer = customerRepository.save(customer);
+    customerCache.invalidate(savedCustomer.getCustomerId());
     savedCustomer.setPassword(null);
     return ResponseEntity.ok(savedCustomer);
   }
@@ -110,6 +115,7 @@ public class AuthController {
       return ResponseEntity.status(400).body("Driver already exists");
     }
     Driver token = driverRepository.save(driver);
+    driverPresenceRegistry.register(token);
     token.setPassword(null);
     return ResponseEntity.ok(token);
   }
@@ -0,0 +1,78 @@
+package com.swiftlogistics.orchestrator.controller;
+
+import com.swiftlogistics.orchestrator.dto.DeadLetterMessage;
+import com.swiftlogistics.orchestrator.dto.DeadLetterQueueInfo;
+import com.swiftlogistics.orchestrator.dto.RedriveJob;
+import com.swiftlogistics.orchestrator.dto.RedriveRequest;
+import com.swiftlogistics.orchestrator.model.enums.DeadLetterSource;
+import com.swiftlogistics.orchestrator.service.DeadLetterService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Operations on failed messages.
+ * A stage is a work queue, e.g. billing-updates; its failed messages are in
+ * the DLQ (dead-lettered by the broker) or the parking queue (out of retries).
+ */
+@RestController
+@RequestMapping("/api/v1/admin/dead-letters")
+@RequiredArgsConstructor
+@Slf4j
+public class DeadLetterController {
+
+    private final DeadLetterService deadLetterService;
+
+    @GetMapping
+    public ResponseEntity<List<DeadLetterQueueInfo>> getQueues() {
+        return ResponseEntity.ok(deadLetterService.getQueues());
+    }
+
+    @GetMapping("/{stage}/messages")
+    public ResponseEntity<?> peek(@PathVariable String stage,
+                                  @RequestParam(defaultValue = "DLQ") DeadLetterSource source,
+                                  @RequestParam(defaultValue = "20") int limit) {
+        try {
+            List<DeadLetterMessage> messages = deadLetterService.peek(stage, source, limit);
+            return ResponseEntity.ok(messages);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/{stage}/redrive")
+    public ResponseEntity<?> redrive(@PathVariable String stage,
+                                     @RequestBody(required = false) RedriveRequest request) {
+        try {
+            RedriveJob job = deadLetterService.redrive(stage, request != null ? request : new RedriveRequest());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/redrives")
+    public ResponseEntity<List<RedriveJob>> getRedrives() {
+        return ResponseEntity.ok(deadLetterService.getJobs());
+    }
+
+    @GetMapping("/redrives/{jobId}")
+    public ResponseEntity<RedriveJob> getRedrive(@PathVariable String jobId) {
+        return deadLetterService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/redrives/{jobId}")
+    public ResponseEntity<Void> cancelRedrive(@PathVariable String jobId) {
+        return deadLetterService.cancel(jobId)
+                ? ResponseEntity.accepted().build()
+                : ResponseEntity.notFound().build();
+    }
+}
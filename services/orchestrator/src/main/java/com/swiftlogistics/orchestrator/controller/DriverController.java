@@ -1,12 +1,16 @@
 package com.swiftlogistics.orchestrator.controller;
 
+import com.swiftlogistics.orchestrator.cache.OrderVersionCache;
+import com.swiftlogistics.orchestrator.dto.DriverPresence;
 import com.swiftlogistics.orchestrator.dto.DriverUpdateMessage;
-import com.swiftlogistics.orchestrator.model.Order;
+import com.swiftlogistics.orchestrator.service.DriverPresenceRegistry;
 import com.swiftlogistics.orchestrator.service.DriverService;
+import com.swiftlogistics.orchestrator.service.OrderProjection;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Optional;
@@ -18,20 +22,47 @@ import java.util.Optional;
 public class DriverController {
 
     private final DriverService driverService;
+    private final DriverPresenceRegistry driverPresenceRegistry;
+    private final OrderVersionCache orderVersionCache;
 
     /**
-     * Get orders for driver
+     * Get orders for driver as summaries, or only the given fields
      */
     @GetMapping("/driver/{driverId}")
-    public ResponseEntity<List<Order>> getOrdersByDriver(@PathVariable String driverId) {
-        List<Order> orders = driverService.getPendingOrdersForDriver(driverId);
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<List<Object>> getOrdersByDriver(@PathVariable String driverId,
+                                                          @RequestParam(required = false) String fields) {
+        if (fields == null || fields.isBlank()) {
+            // Summaries come from the in-memory driver inbox
+            return ResponseEntity.ok(List.copyOf(driverService.getPendingOrdersForDriver(driverId)));
+        }
+
+        try {
+            List<Object> orders = driverService.getPendingOrdersForDriver(driverId, OrderProjection.parse(fields));
+            return ResponseEntity.ok(orders);
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected driver order list request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Get available drivers, optionally filtered by vehicle type
+     */
+    @GetMapping("/available")
+    public ResponseEntity<List<DriverPresence>> getAvailableDrivers(@RequestParam(required = false) String type) {
+        return ResponseEntity.ok(driverPresenceRegistry.findAvailable(type));
     }
 
     @GetMapping("/orders/{orderId}")
-    public ResponseEntity<DriverUpdateMessage> getOrder(@PathVariable String orderId) {
+    public ResponseEntity<DriverUpdateMessage> getOrder(@PathVariable String orderId, WebRequest webRequest) {
+        // Routes never change for a given order version, so the order's ETag covers both
+        String etag = orderVersionCache.getETag(orderId);
+        if (etag != null && webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
         DriverUpdateMessage order = driverService.getOrderDetails(orderId);
-        return ResponseEntity.ok(order);
+        return etag == null ? ResponseEntity.ok(order) : ResponseEntity.ok().eTag(etag).body(order);
     }
 
     @PutMapping("/driver/start/{orderId}")
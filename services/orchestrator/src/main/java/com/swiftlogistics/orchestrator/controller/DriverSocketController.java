@@ -0,0 +1,57 @@
+package com.swiftlogistics.orchestrator.controller;
+
+import com.swiftlogistics.orchestrator.dto.DriverCommand;
+import com.swiftlogistics.orchestrator.dto.DriverCommandResult;
+import com.swiftlogistics.orchestrator.messaging.publisher.DriverPushPublisher;
+import com.swiftlogistics.orchestrator.service.DriverService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Controller;
+
+import java.time.LocalDateTime;
+
+/**
+ * Driver commands sent over the STOMP connection, the socket counterpart of
+ * the start/complete endpoints in DriverController
+ */
+@Controller
+@RequiredArgsConstructor
+@Slf4j
+public class DriverSocketController {
+
+    private final DriverService driverService;
+    private final DriverPushPublisher driverPushPublisher;
+
+    @MessageMapping("/drivers/{driverId}/commands")
+    public void handleCommand(@DestinationVariable String driverId, @Payload DriverCommand command) {
+        log.info("Driver command received: driverId={}, orderId={}, action={}",
+                driverId, command.getOrderId(), command.getAction());
+
+        DriverCommandResult.DriverCommandResultBuilder result = DriverCommandResult.builder()
+                .commandId(command.getCommandId())
+                .orderId(command.getOrderId())
+                .action(command.getAction());
+
+        try {
+            if (command.getOrderId() == null || command.getAction() == null) {
+                throw new IllegalArgumentException("Order ID and action are required");
+            }
+            switch (command.getAction()) {
+                case ACK -> driverService.acknowledgeAssignment(command.getOrderId(), driverId);
+                case START -> driverService.startDelivery(command.getOrderId(), driverId);
+                case COMPLETE -> driverService.completeDelivery(command.getOrderId(), driverId);
+            }
+            result.success(true);
+
+        } catch (Exception e) {
+            log.error("Driver command failed: driverId={}, orderId={}, action={}",
+                    driverId, command.getOrderId(), command.getAction(), e);
+            result.success(false).error(e.getMessage());
+        }
+
+        driverPushPublisher.publishCommandResult(driverId, result.timestamp(LocalDateTime.now()).build());
+    }
+}
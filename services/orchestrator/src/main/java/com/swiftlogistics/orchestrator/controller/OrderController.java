@@ -1,15 +1,29 @@
 package com.swiftlogistics.orchestrator.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.swiftlogistics.orchestrator.cache.OrderResponseCache;
+import com.swiftlogistics.orchestrator.cache.OrderVersionCache;
+import com.swiftlogistics.orchestrator.dto.BatchOrderResult;
 import com.swiftlogistics.orchestrator.dto.CreateOrderRequest;
+import com.swiftlogistics.orchestrator.dto.OrderPage;
+import com.swiftlogistics.orchestrator.dto.OrderSearchCriteria;
 import com.swiftlogistics.orchestrator.model.Order;
 import com.swiftlogistics.orchestrator.model.Event;
+import com.swiftlogistics.orchestrator.model.enums.OrderStatus;
 import com.swiftlogistics.orchestrator.service.OrderService;
 import com.swiftlogistics.orchestrator.service.EventService;
+import com.swiftlogistics.orchestrator.service.OrderProjection;
+import com.swiftlogistics.orchestrator.service.OrderSearchService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.Map;
@@ -26,6 +40,12 @@ public class OrderController {
 
     private final OrderService orderService;
     private final EventService eventService;
+    private final OrderSearchService orderSearchService;
+    private final OrderVersionCache orderVersionCache;
+    private final OrderResponseCache orderResponseCache;
+
+    @Value("${orchestrator.orders.batch-max-size:5000}")
+    private int maxBatchSize;
 
     /**
      * Create a new order
@@ -44,33 +64,138 @@ public class OrderController {
         }
     }
 
+    /**
+     * Create many orders in one call, e.g. for ERP imports
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> createOrders(@RequestBody List<CreateOrderRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            return ResponseEntity.badRequest().body("At least one order is required");
+        }
+        if (requests.size() > maxBatchSize) {
+            return ResponseEntity.badRequest().body("At most " + maxBatchSize + " orders per batch");
+        }
+
+        log.info("Creating order batch: size={}", requests.size());
+        List<BatchOrderResult> results = orderService.createOrders(requests);
+        return ResponseEntity.ok(results);
+    }
+
+    /**
+     * Search orders, newest first, one page at a time
+     */
+    @GetMapping("/search")
+    public ResponseEntity<OrderPage<Object>> searchOrders(
+            @RequestParam(required = false) String customerId,
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) String driverId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String fields) {
+        OrderSearchCriteria criteria = OrderSearchCriteria.builder()
+                .customerId(customerId)
+                .status(status)
+                .city(city)
+                .driverId(driverId)
+                .createdFrom(from)
+                .createdTo(to)
+                .build();
+
+        try {
+            return ResponseEntity.ok(orderSearchService.search(criteria, cursor, limit, OrderProjection.parse(fields)));
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected order search: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * Get order by ID
      */
     @GetMapping("/{orderId}")
-    public ResponseEntity<Order> getOrder(@PathVariable String orderId) {
-        Optional<Order> order = orderService.getOrder(orderId);
-        return order.map(ResponseEntity::ok)
-                   .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<byte[]> getOrder(@PathVariable String orderId, WebRequest webRequest) {
+        // Hot orders are written straight from the cached JSON
+        OrderResponseCache.CachedResponse cached = orderResponseCache.getOrder(orderId);
+        if (cached == null) {
+            // Answer If-None-Match from the version cache before reading the order
+            String etag = orderVersionCache.getETag(orderId);
+            if (etag == null) {
+                return ResponseEntity.notFound().build();
+            }
+            if (webRequest.checkNotModified(etag)) {
+                return null;
+            }
+
+            Optional<Order> order = orderService.getOrder(orderId);
+            if (order.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            try {
+                String loadedETag = OrderVersionCache.etagOf(order.get());
+                cached = orderResponseCache.putOrder(orderId, loadedETag, order.get());
+                // Checked after the put: a write invalidated before this point changes the ETag,
+                // one invalidated after it drops the entry itself
+                if (!loadedETag.equals(orderVersionCache.getETag(orderId))) {
+                    orderResponseCache.invalidateOrder(orderId, cached);
+                }
+            } catch (JsonProcessingException e) {
+                log.error("Failed to serialize order: {}", orderId, e);
+                return ResponseEntity.internalServerError().build();
+            }
+        } else if (webRequest.checkNotModified(cached.etag())) {
+            return null;
+        }
+
+        return ResponseEntity.ok()
+                .eTag(cached.etag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(cached.body());
     }
 
     /**
-     * Get orders by customer ID
+     * Get orders by customer ID as summaries, or only the given fields
      */
     @GetMapping("/customer/{customerId}")
-    public ResponseEntity<List<Order>> getOrdersByCustomer(@PathVariable String customerId) {
-        List<Order> orders = orderService.getOrdersByCustomer(customerId);
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<List<Object>> getOrdersByCustomer(@PathVariable String customerId,
+                                                            @RequestParam(required = false) String fields,
+                                                            WebRequest webRequest) {
+        try {
+            OrderProjection projection = OrderProjection.parse(fields);
+            String etag = orderVersionCache.getCustomerETag(customerId, fields);
+            if (webRequest.checkNotModified(etag)) {
+                return null;
+            }
+
+            List<Object> orders = orderService.getOrdersByCustomer(customerId, projection);
+            return ResponseEntity.ok().eTag(etag).body(orders);
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected order list request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     /**
      * Get order events/audit trail
      */
     @GetMapping("/{orderId}/events")
-    public ResponseEntity<List<Event>> getOrderEvents(@PathVariable String orderId) {
+    public ResponseEntity<byte[]> getOrderEvents(@PathVariable String orderId) {
         try {
-            List<Event> events = eventService.getOrderEvents(orderId);
-            return ResponseEntity.ok(events);
+            byte[] body = orderResponseCache.getEvents(orderId);
+            if (body == null) {
+                List<Event> events = eventService.getOrderEvents(orderId);
+                body = orderResponseCache.putEvents(orderId, events);
+                // Checked after the put: events stored before this point change the count,
+                // ones stored after it drop the entry themselves
+                if (eventService.countOrderEvents(orderId) != events.size()) {
+                    orderResponseCache.invalidateEvents(orderId, body);
+                }
+            }
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(body);
         } catch (Exception e) {
             log.error("Failed to retrieve events for order: {}", orderId, e);
             return ResponseEntity.internalServerError().build();
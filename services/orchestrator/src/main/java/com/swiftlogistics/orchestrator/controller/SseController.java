@@ -1,25 +1,21 @@
 package com.swiftlogistics.orchestrator.controller;
 
-import lombok.Getter;
+import com.swiftlogistics.orchestrator.messaging.publisher.SsePublisher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.io.IOException;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-
 @RestController
 @RequiredArgsConstructor
 //@RequestMapping("/api/v1/sse")
 @Slf4j
 public class SseController {
 
-    // Store active emitters
-    @Getter
-    private final Map<String, SseEmitter> orderEmitters = new ConcurrentHashMap<>();
+    private static final long EMITTER_TIMEOUT_MS = 500_000L; // 5 minutes
+
+    private final SsePublisher ssePublisher;
 
     // SSE endpoint for order updates
     @GetMapping(value = "/sse/order/{orderId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
@@ -29,33 +25,23 @@ public class SseController {
 
         log.info("Order SSE connection requested: orderId={}, lastEventId={}", orderId, lastEventId);
 
-        SseEmitter emitter = new SseEmitter(500_000L); // 5 minutes
-        orderEmitters.put(orderId, emitter);
-
-        emitter.onCompletion(() -> {
-            log.info("SSE connection completed for order: {}", orderId);
-            orderEmitters.remove(orderId);
-        });
-
-        emitter.onTimeout(() -> {
-            log.info("SSE connection timed out for order: {}", orderId);
-            orderEmitters.remove(orderId);
-        });
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        // Queues the connected event and any updates missed since lastEventId
+        ssePublisher.subscribeOrder(orderId, emitter, lastEventId);
+        return emitter;
+    }
 
-        emitter.onError((e) -> {
-            log.error("SSE connection error for order: {}", orderId, e);
-            orderEmitters.remove(orderId);
-        });
+    // SSE endpoint for updates on all orders of a customer over one connection
+    @GetMapping(value = "/sse/customer/{customerId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeCustomer(
+            @PathVariable String customerId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
 
-        try {
-            emitter.send(SseEmitter.event()
-                    .name("connected")
-                    .data("Connection established for order: " + orderId));
-        } catch (IOException e) {
-            log.error("Failed to send initial SSE message to order: {}", orderId, e);
-        }
+        log.info("Customer SSE connection requested: customerId={}, lastEventId={}", customerId, lastEventId);
 
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        ssePublisher.subscribeCustomer(customerId, emitter, lastEventId);
         return emitter;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,52 @@
+package com.swiftlogistics.orchestrator.controller;
+
+import com.swiftlogistics.orchestrator.dto.WebhookRegistration;
+import com.swiftlogistics.orchestrator.messaging.publisher.WebhookDispatcher;
+import com.swiftlogistics.orchestrator.model.WebhookEndpoint;
+import com.swiftlogistics.orchestrator.service.WebhookService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Customer webhook registration.
+ * Order status changes are POSTed to every registered URL in signed batches.
+ */
+@RestController
+@RequestMapping("/api/v1/customers/{customerId}/webhooks")
+@RequiredArgsConstructor
+@Slf4j
+public class WebhookController {
+
+    private final WebhookService webhookService;
+    private final WebhookDispatcher webhookDispatcher;
+
+    @PostMapping
+    public ResponseEntity<?> register(@PathVariable String customerId, @RequestBody WebhookRegistration request) {
+        if (request.getUrl() == null || request.getUrl().isEmpty()) {
+            return ResponseEntity.badRequest().body("Webhook URL is required");
+        }
+        try {
+            return ResponseEntity.ok(webhookService.register(customerId, request.getUrl()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<List<WebhookEndpoint>> list(@PathVariable String customerId) {
+        return ResponseEntity.ok(webhookService.getEndpoints(customerId));
+    }
+
+    @DeleteMapping("/{endpointId}")
+    public ResponseEntity<Void> delete(@PathVariable String customerId, @PathVariable String endpointId) {
+        if (!webhookService.delete(customerId, endpointId)) {
+            return ResponseEntity.notFound().build();
+        }
+        webhookDispatcher.remove(endpointId);
+        return ResponseEntity.noContent().build();
+    }
+}
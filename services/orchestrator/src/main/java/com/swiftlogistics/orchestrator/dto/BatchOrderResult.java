@@ -0,0 +1,17 @@
+package com.swiftlogistics.orchestrator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BatchOrderResult {
+    private int index;          // position in the submitted batch
+    private String orderId;
+    private String status;      // "CREATED", "REJECTED", "FAILED"
+    private String error;
+}
@@ -0,0 +1,21 @@
+package com.swiftlogistics.orchestrator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DeadLetterMessage {
+    private String messageId;
+    private String orderId;
+    private String type;                // __TypeId__ header, if the publisher set one
+    private String contentType;
+    private String reason;              // "rejected", "expired", ... from x-death, or the last listener error
+    private long deathCount;
+    private int retryCount;
+    private String body;                // decoded body, rendered as JSON
+}
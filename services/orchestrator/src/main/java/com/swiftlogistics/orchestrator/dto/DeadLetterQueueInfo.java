@@ -0,0 +1,19 @@
+package com.swiftlogistics.orchestrator.dto;
+
+import com.swiftlogistics.orchestrator.model.enums.DeadLetterSource;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DeadLetterQueueInfo {
+    private String stage;               // work queue the messages belong to
+    private DeadLetterSource source;
+    private String queue;
+    private long messageCount;
+    private int consumerCount;
+}
@@ -0,0 +1,23 @@
+package com.swiftlogistics.orchestrator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DriverCommand {
+
+    public enum Action {
+        ACK,        // driver has seen an assignment
+        START,      // start delivery
+        COMPLETE    // complete delivery
+    }
+
+    private String commandId;   // chosen by the app, echoed in the result
+    private String orderId;
+    private Action action;
+}
@@ -0,0 +1,21 @@
+package com.swiftlogistics.orchestrator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DriverCommandResult {
+    private String commandId;
+    private String orderId;
+    private DriverCommand.Action action;
+    private boolean success;
+    private String error;
+    private LocalDateTime timestamp;
+}
@@ -0,0 +1,18 @@
+package com.swiftlogistics.orchestrator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DriverPresence {
+    private String driverId;
+    private String driverName;
+    private String vehicleId;
+    private String type;
+    private boolean available;
+}
@@ -0,0 +1,24 @@
+package com.swiftlogistics.orchestrator.dto;
+
+import com.swiftlogistics.orchestrator.model.enums.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class OrderSearchCriteria {
+    private String customerId;
+    private OrderStatus status;
+    private String city;
+    private String driverId;
+
+    // Created-at range, from inclusive and to exclusive
+    private LocalDateTime createdFrom;
+    private LocalDateTime createdTo;
+}
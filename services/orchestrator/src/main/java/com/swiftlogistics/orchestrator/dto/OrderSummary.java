@@ -0,0 +1,45 @@
+package com.swiftlogistics.orchestrator.dto;
+
+import com.swiftlogistics.orchestrator.model.Order;
+import com.swiftlogistics.orchestrator.model.enums.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Order fields shown in list views
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class OrderSummary {
+
+    // Order fields read for a summary, used as the Mongo projection
+    public static final List<String> FIELDS = List.of(
+            "orderId", "status", "deliveryAddress", "city", "driverId", "totalAmount", "createdAt");
+
+    private String orderId;
+    private OrderStatus status;
+    private String deliveryAddress;
+    private String city;
+    private String driverId;
+    private Double totalAmount;
+    private LocalDateTime createdAt;
+
+    public static OrderSummary from(Order order) {
+        return OrderSummary.builder()
+                .orderId(order.getOrderId())
+                .status(order.getStatus())
+                .deliveryAddress(order.getDeliveryAddress())
+                .city(order.getCity())
+                .driverId(order.getDriverId())
+                .totalAmount(order.getTotalAmount())
+                .createdAt(order.getCreatedAt())
+                .build();
+    }
+}
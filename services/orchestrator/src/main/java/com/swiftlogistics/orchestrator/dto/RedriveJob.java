@@ -0,0 +1,27 @@
+package com.swiftlogistics.orchestrator.dto;
+
+import com.swiftlogistics.orchestrator.model.enums.DeadLetterSource;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RedriveJob {
+    private String jobId;
+    private String stage;
+    private DeadLetterSource source;
+    private String status;              // "RUNNING", "COMPLETED", "CANCELLED", "FAILED"
+    private int ratePerSecond;
+    private int scanned;
+    private int redriven;
+    private int skipped;
+    private String error;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
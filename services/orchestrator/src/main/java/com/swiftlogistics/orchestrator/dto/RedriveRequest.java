@@ -0,0 +1,19 @@
+package com.swiftlogistics.orchestrator.dto;
+
+import com.swiftlogistics.orchestrator.model.enums.DeadLetterSource;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RedriveRequest {
+    private DeadLetterSource source;    // defaults to DLQ
+    private String orderId;             // only messages for this order
+    private String reasonContains;      // only messages whose reason contains this text
+    private Integer limit;              // most messages to redrive
+    private Integer ratePerSecond;      // capped by orchestrator.dead-letters.max-rate-per-second
+}
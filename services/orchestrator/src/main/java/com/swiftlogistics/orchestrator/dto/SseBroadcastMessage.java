@@ -0,0 +1,19 @@
+package com.swiftlogistics.orchestrator.dto;
+
+import com.swiftlogistics.orchestrator.model.enums.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SseBroadcastMessage {
+    private String eventId;    // "<node>-<sequence>", unique across nodes
+    private String orderId;
+    private String customerId;
+    private OrderStatus status;
+    private String data;    // OrderStatusMessage, serialized once as JSON by the publishing node
+}
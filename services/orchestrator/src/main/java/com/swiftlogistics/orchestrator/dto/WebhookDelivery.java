@@ -0,0 +1,18 @@
+package com.swiftlogistics.orchestrator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class WebhookDelivery {
+    private String deliveryId;      // the same on every retry of this batch
+    private String customerId;
+    private List<WebhookEvent> events;
+}
@@ -0,0 +1,21 @@
+package com.swiftlogistics.orchestrator.dto;
+
+import com.swiftlogistics.orchestrator.model.enums.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class WebhookEvent {
+    private String eventId;
+    private String orderId;
+    private OrderStatus status;
+    private String message;
+    private LocalDateTime timestamp;
+}
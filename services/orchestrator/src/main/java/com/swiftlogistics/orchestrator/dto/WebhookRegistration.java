@@ -0,0 +1,16 @@
+package com.swiftlogistics.orchestrator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class WebhookRegistration {
+    private String endpointId;
+    private String url;
+    private String secret;      // only sent in the registration response
+}
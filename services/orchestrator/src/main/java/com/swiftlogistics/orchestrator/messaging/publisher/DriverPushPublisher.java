@@ -0,0 +1,66 @@
+package com.swiftlogistics.orchestrator.messaging.publisher;
+
+import com.swiftlogistics.orchestrator.config.MessageCodec;
+import com.swiftlogistics.orchestrator.config.RabbitMQConfig;
+import com.swiftlogistics.orchestrator.config.WebSocketConfig;
+import com.swiftlogistics.orchestrator.dto.DriverCommandResult;
+import com.swiftlogistics.orchestrator.dto.DriverUpdateMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Pushes driver updates to the driver app over STOMP.
+ * Updates are broadcast through RabbitMQ so the node holding the driver's
+ * WebSocket session delivers them, whichever node produced the update.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DriverPushPublisher {
+
+    private final RabbitTemplate rabbitTemplate;
+    private final MessageCodec messageCodec;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    /**
+     * Publish an assignment or route change for a driver
+     */
+    public void publishDriverUpdate(DriverUpdateMessage update) {
+        if (update.getDriverId() == null) {
+            log.debug("Skipping driver push without driver: orderId={}", update.getOrderId());
+            return;
+        }
+        try {
+            MessageProperties properties = new MessageProperties();
+            properties.setDeliveryMode(MessageDeliveryMode.NON_PERSISTENT);
+            rabbitTemplate.send(RabbitMQConfig.EXCHANGE_DRIVER_PUSH, "",
+                    messageCodec.encode(RabbitMQConfig.EXCHANGE_DRIVER_PUSH, update, properties));
+        } catch (AmqpException e) {
+            log.warn("Driver push broadcast failed, delivering locally only: orderId={}, driverId={}",
+                    update.getOrderId(), update.getDriverId(), e);
+            deliverLocally(update);
+        }
+    }
+
+    /**
+     * Send an update to the driver's sessions connected to this node
+     */
+    public void deliverLocally(DriverUpdateMessage update) {
+        messagingTemplate.convertAndSend(WebSocketConfig.DRIVER_TOPIC_PREFIX + update.getDriverId(), update);
+        log.info("Pushed driver update: orderId={}, driverId={}, status={}",
+                update.getOrderId(), update.getDriverId(), update.getStatus());
+    }
+
+    /**
+     * Reply to a driver command; the sending session is connected to this node
+     */
+    public void publishCommandResult(String driverId, DriverCommandResult result) {
+        messagingTemplate.convertAndSend(WebSocketConfig.DRIVER_TOPIC_PREFIX + driverId + "/results", result);
+    }
+}
@@ -1,77 +1,212 @@
 package com.swiftlogistics.orchestrator.messaging.publisher;
 
-import com.swiftlogistics.orchestrator.config.RabbitMQConfig;
-import com.swiftlogistics.orchestrator.dto.OrderMessage;
-import com.swiftlogistics.orchestrator.dto.RouteRequestMessage;
-import com.swiftlogistics.orchestrator.dto.WarehouseRequestMessage;
-import lombok.RequiredArgsConstructor;
+import com.swiftlogistics.orchestrator.config.MessageCodec;
+import com.swiftlogistics.orchestrator.model.OutboxMessage;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Publishes outbox messages with asynchronous publisher confirms.
+ * Up to max-in-flight messages may be waiting for their confirm; publish()
+ * blocks once the window is full. Nacked and returned messages are re-sent
+ * after a short delay until max-publish-attempts is reached. The template has
+ * its own confirm callback and uses the publisher connection, so flow control
+ * on publishing never stalls the listener containers.
+ * Orders go to the CMS Adapter (billing), warehouse requests to the WMS Adapter
+ * and route planning requests to the ROS Adapter.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class OrderPublisher {
 
+    /**
+     * One send of a message; a re-send gets a new correlation id
+     */
+    private static class Attempt extends CorrelationData {
+        final OutboxMessage message;
+        final Message amqpMessage;
+        final CompletableFuture<Boolean> result;
+        final int number;
+        final long sentAtNanos = System.nanoTime();
+
+        Attempt(OutboxMessage message, Message amqpMessage, CompletableFuture<Boolean> result, int number) {
+            super(message.getMessageId() + ":" + number);
+            this.message = message;
+            this.amqpMessage = amqpMessage;
+            this.result = result;
+            this.number = number;
+        }
+    }
+
     private final RabbitTemplate rabbitTemplate;
+    private final MessageCodec messageCodec;
+    private final MeterRegistry meterRegistry;
+    private final Semaphore window;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ScheduledExecutorService resendScheduler;
+    private final long confirmTimeoutMs;
+    private final int maxAttempts;
+    private final long resendDelayMs;
+
+    public OrderPublisher(CachingConnectionFactory connectionFactory,
+                          MessageCodec messageCodec,
+                          MeterRegistry meterRegistry,
+                          @Value("${orchestrator.outbox.max-in-flight:1000}") int maxInFlight,
+                          @Value("${orchestrator.outbox.confirm-timeout-ms:5000}") long confirmTimeoutMs,
+                          @Value("${orchestrator.outbox.max-publish-attempts:3}") int maxAttempts,
+                          @Value("${orchestrator.outbox.resend-delay-ms:500}") long resendDelayMs) {
+        this.messageCodec = messageCodec;
+        this.meterRegistry = meterRegistry;
+        this.window = new Semaphore(maxInFlight);
+        this.confirmTimeoutMs = confirmTimeoutMs;
+        this.maxAttempts = maxAttempts;
+        this.resendDelayMs = resendDelayMs;
+        this.resendScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-publisher-resend");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.rabbitTemplate = new RabbitTemplate(connectionFactory);
+        rabbitTemplate.setMandatory(true);
+        rabbitTemplate.setUsePublisherConnection(true);
+        rabbitTemplate.setConfirmCallback(this::confirmed);
+
+        Gauge.builder("rabbit.publisher.in.flight", inFlight, AtomicInteger::get)
+                .description("Outbox messages published and waiting for a broker confirm")
+                .register(meterRegistry);
+    }
 
     /**
-     * Step 1: Publish order created event
-     * This is consumed by CMS Adapter for billing
+     * Publish a message taken from an order's outbox.
+     * The returned future completes with true once the broker has confirmed and
+     * routed the message, or with false when every attempt failed or the confirm
+     * timed out.
      */
-    public void publishOrderCreated(OrderMessage orderMessage) {
+    public CompletableFuture<Boolean> publish(OutboxMessage message) throws InterruptedException {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        if (!window.tryAcquire(confirmTimeoutMs, TimeUnit.MILLISECONDS)) {
+            log.warn("Publisher confirm window full, deferring message: messageId={}", message.getMessageId());
+            result.complete(false);
+            return result;
+        }
+
+        inFlight.incrementAndGet();
+        result.orTimeout(confirmTimeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((delivered, error) -> {
+                    inFlight.decrementAndGet();
+                    window.release();
+                    if (error != null) {
+                        log.warn("No confirm for message: messageId={}", message.getMessageId());
+                    }
+                });
+
+        Message amqpMessage;
         try {
-            rabbitTemplate.convertAndSend(
-                    RabbitMQConfig.EXCHANGE_ORDER_CREATED,
-                    RabbitMQConfig.ROUTING_KEY_ORDER_CREATED,
-                    orderMessage
-            );
-            log.info("Published Order Created event: orderId={}",
-                    orderMessage.getOrderId());
+            MessageProperties properties = new MessageProperties();
+            properties.setMessageId(message.getMessageId());
+            amqpMessage = messageCodec.encode(message.getExchange(), message.getPayload(), properties);
         } catch (Exception e) {
-            log.error("Failed to publish Order Created event: orderId={}", orderMessage.getOrderId(), e);
-            throw e;
+            log.error("Failed to encode message: exchange={}, messageId={}",
+                    message.getExchange(), message.getMessageId(), e);
+            result.complete(false);
+            return result;
         }
+
+        send(new Attempt(message, amqpMessage, result, 1));
+        return result.exceptionally(error -> false);
     }
 
-    /**
-     * Step 3: Publish order to warehouse queue after billing
-     * This is consumed by WMS Adapter
-     */
-    public void publishToWarehouse(WarehouseRequestMessage warehouseRequest) {
+    private void send(Attempt attempt) {
+        OutboxMessage message = attempt.message;
         try {
-            rabbitTemplate.convertAndSend(
-                    RabbitMQConfig.EXCHANGE_WAREHOUSE,
-                    RabbitMQConfig.ROUTING_KEY_WAREHOUSE_REQUEST,
-                    warehouseRequest
-            );
-            log.info("Published Order to Warehouse: orderId={}",
-                    warehouseRequest.getOrderId());
+            rabbitTemplate.send(message.getExchange(), message.getRoutingKey(), attempt.amqpMessage, attempt);
+            log.debug("Published message: exchange={}, routingKey={}, messageId={}, attempt={}",
+                    message.getExchange(), message.getRoutingKey(), message.getMessageId(), attempt.number);
         } catch (Exception e) {
-            log.error("Failed to publish to Warehouse: orderId={}", warehouseRequest.getOrderId(), e);
-            throw e;
+            log.error("Failed to publish message: exchange={}, messageId={}",
+                    message.getExchange(), message.getMessageId(), e);
+            retry(attempt, "error");
+        }
+    }
+
+    /**
+     * Confirm callback, invoked on the connection thread; returns arrive before the ack
+     */
+    private void confirmed(CorrelationData correlationData, boolean ack, String cause) {
+        if (!(correlationData instanceof Attempt attempt)) {
+            return;
+        }
+
+        ReturnedMessage returned = attempt.getReturned();
+        String outcome = !ack ? "nack" : returned != null ? "returned" : "ack";
+        Timer.builder("rabbit.publisher.confirm.latency")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - attempt.sentAtNanos, TimeUnit.NANOSECONDS);
+
+        switch (outcome) {
+            case "ack" -> {
+                attempt.result.complete(true);
+                log.info("Message confirmed: exchange={}, messageId={}",
+                        attempt.message.getExchange(), attempt.message.getMessageId());
+            }
+            case "nack" -> {
+                log.warn("Message nacked: messageId={}, attempt={}, reason={}",
+                        attempt.message.getMessageId(), attempt.number, cause);
+                retry(attempt, outcome);
+            }
+            default -> {
+                log.warn("Message returned as unroutable: messageId={}, exchange={}, replyText={}",
+                        attempt.message.getMessageId(), attempt.message.getExchange(), returned.getReplyText());
+                retry(attempt, outcome);
+            }
         }
     }
 
     /**
-     * Step 4: Publish route planning request
-     * This is consumed by ROS Adapter
+     * Re-send off the connection thread, or give up after the last attempt
      */
-    public void publishRoutePlanningRequest(RouteRequestMessage routeRequestMessage) {
+    private void retry(Attempt attempt, String reason) {
+        if (attempt.result.isDone()) {
+            return;
+        }
+        if (attempt.number >= maxAttempts) {
+            attempt.result.complete(false);
+            return;
+        }
+
+        meterRegistry.counter("rabbit.publisher.resends", "reason", reason).increment();
         try {
-            rabbitTemplate.convertAndSend(
-                    RabbitMQConfig.EXCHANGE_ROUTE,
-                    RabbitMQConfig.ROUTING_KEY_ROUTE_PLANNING,
-                    routeRequestMessage
-            );
-            log.info("Published Route Planning request: orderId={}",
-                    routeRequestMessage.getOrderId());
+            resendScheduler.schedule(
+                    () -> send(new Attempt(attempt.message, attempt.amqpMessage, attempt.result, attempt.number + 1)),
+                    resendDelayMs * attempt.number, TimeUnit.MILLISECONDS);
         } catch (Exception e) {
-            log.error("Failed to publish Route Planning request: orderId={}", routeRequestMessage.getOrderId(), e);
-            throw e;
+            // Shutting down; the message stays in the outbox
+            attempt.result.complete(false);
         }
     }
-}
-
 
+    @PreDestroy
+    public void shutdown() {
+        resendScheduler.shutdownNow();
+    }
+}
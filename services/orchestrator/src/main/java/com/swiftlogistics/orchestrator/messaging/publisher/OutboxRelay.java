@@ -0,0 +1,235 @@
+package com.swiftlogistics.orchestrator.messaging.publisher;
+
+import com.swiftlogistics.orchestrator.model.Order;
+import com.swiftlogistics.orchestrator.model.OutboxMessage;
+import com.swiftlogistics.orchestrator.model.enums.EventSource;
+import com.swiftlogistics.orchestrator.service.EventService;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Outbox relay
+ * Publishes messages stored on order documents in batches and removes them
+ * from the outbox as their broker confirms arrive. The relay does not wait
+ * for confirms; it keeps publishing until the publisher's confirm window is
+ * full. Orders are claimed with a lease, kept apart from the due time so that
+ * messages added meanwhile cannot break it, and several orchestrator nodes
+ * never publish the same outbox at the same time. The lease is released once
+ * every message is confirmed; unconfirmed messages are retried when it expires.
+ */
+@Component
+@Slf4j
+public class OutboxRelay implements SmartLifecycle {
+
+    private record InFlight(OutboxMessage message, CompletableFuture<Boolean> confirmed) {
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final OrderPublisher orderPublisher;
+    private final EventService eventService;
+    private final int batchSize;
+    private final long pollIntervalMs;
+    private final long leaseMs;
+    private final long confirmTimeoutMs;
+
+    private final Semaphore signal = new Semaphore(0);
+    private final ExecutorService completionExecutor = Executors.newSingleThreadExecutor(runnable ->
+            Thread.ofPlatform().name("outbox-complete").daemon(true).unstarted(runnable));
+    // Orders published but not yet completed; stop() waits for them before shutting down
+    private final Set<CompletableFuture<Void>> pending = ConcurrentHashMap.newKeySet();
+    private volatile boolean running;
+    private Thread relayThread;
+
+    public OutboxRelay(MongoTemplate mongoTemplate,
+                       OrderPublisher orderPublisher,
+                       EventService eventService,
+                       @Value("${orchestrator.outbox.batch-size:100}") int batchSize,
+                       @Value("${orchestrator.outbox.poll-interval-ms:1000}") long pollIntervalMs,
+                       @Value("${orchestrator.outbox.lease-ms:30000}") long leaseMs,
+                       @Value("${orchestrator.outbox.confirm-timeout-ms:5000}") long confirmTimeoutMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.orderPublisher = orderPublisher;
+        this.eventService = eventService;
+        this.batchSize = batchSize;
+        this.pollIntervalMs = pollIntervalMs;
+        this.leaseMs = leaseMs;
+        this.confirmTimeoutMs = confirmTimeoutMs;
+    }
+
+    /**
+     * Trigger a relay pass without waiting for the poll interval
+     */
+    public void wakeUp() {
+        signal.release();
+    }
+
+    private void relayLoop() {
+        while (running) {
+            try {
+                signal.tryAcquire(pollIntervalMs, TimeUnit.MILLISECONDS);
+                signal.drainPermits();
+
+                int relayed;
+                do {
+                    relayed = relayBatch();
+                } while (running && relayed == batchSize);
+
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (Exception e) {
+                log.error("Outbox relay pass failed", e);
+            }
+        }
+    }
+
+    /**
+     * Claim and publish one batch of due orders; each order is completed once all its confirms are in
+     */
+    private int relayBatch() throws InterruptedException {
+        LocalDateTime now = LocalDateTime.now();
+        Query dueQuery = new Query(Criteria.where("outboxDueAt").lte(now).orOperator(
+                Criteria.where("outboxLeasedUntil").is(null),
+                Criteria.where("outboxLeasedUntil").lt(now))).limit(batchSize);
+        dueQuery.fields().include("outbox", "outboxLeasedUntil");
+        List<Order> due = mongoTemplate.find(dueQuery, Order.class);
+
+        for (Order order : due) {
+            LocalDateTime lease = order.getOutbox() == null ? null : claim(order, now);
+            if (lease == null) {
+                continue;
+            }
+
+            List<InFlight> inFlight = new ArrayList<>(order.getOutbox().size());
+            for (OutboxMessage message : order.getOutbox()) {
+                inFlight.add(new InFlight(message, orderPublisher.publish(message)));
+            }
+
+            String orderId = order.getOrderId();
+            CompletableFuture<Void> completion = CompletableFuture
+                    .allOf(inFlight.stream().map(InFlight::confirmed).toArray(CompletableFuture[]::new))
+                    .thenRunAsync(() -> complete(orderId, lease, inFlight), completionExecutor)
+                    .exceptionally(e -> {
+                        // Left in the outbox, retried after the lease expires
+                        log.error("Failed to complete outbox: orderId={}", orderId, e);
+                        return null;
+                    });
+            pending.add(completion);
+            completion.whenComplete((ignored, e) -> pending.remove(completion));
+        }
+
+        return due.size();
+    }
+
+    /**
+     * Lease an order's outbox; returns the lease's expiry, or null if another node got it first
+     */
+    private LocalDateTime claim(Order order, LocalDateTime now) {
+        // Millisecond precision, as stored, so complete() can match it
+        LocalDateTime lease = now.plus(leaseMs, ChronoUnit.MILLIS).truncatedTo(ChronoUnit.MILLIS);
+        boolean claimed = mongoTemplate.updateFirst(
+                new Query(Criteria.where("orderId").is(order.getOrderId())
+                        .and("outboxLeasedUntil").is(order.getOutboxLeasedUntil())),
+                new Update().set("outboxLeasedUntil", lease),
+                Order.class
+        ).getModifiedCount() == 1;
+        return claimed ? lease : null;
+    }
+
+    /**
+     * Remove confirmed messages, release the lease if all were confirmed and
+     * clear the due time once the outbox is empty
+     */
+    private void complete(String orderId, LocalDateTime lease, List<InFlight> inFlight) {
+        List<OutboxMessage> confirmed = inFlight.stream()
+                .filter(message -> message.confirmed().join())
+                .map(InFlight::message)
+                .toList();
+        if (!confirmed.isEmpty()) {
+            List<String> messageIds = confirmed.stream().map(OutboxMessage::getMessageId).toList();
+            mongoTemplate.updateFirst(
+                    new Query(Criteria.where("orderId").is(orderId)),
+                    new Update().pull("outbox", new Document("messageId", new Document("$in", messageIds))),
+                    Order.class);
+
+            for (OutboxMessage message : confirmed) {
+                if (message.getEventType() != null) {
+                    eventService.logSuccessEvent(orderId, message.getEventType(),
+                            EventSource.ORCHESTRATOR, message.getDescription());
+                }
+            }
+        }
+
+        if (confirmed.size() == inFlight.size()) {
+            // Messages added while the lease was held go out on the next pass; a lease
+            // another node took after ours expired is left alone
+            mongoTemplate.updateFirst(
+                    new Query(Criteria.where("orderId").is(orderId).and("outboxLeasedUntil").is(lease)),
+                    new Update().unset("outboxLeasedUntil"),
+                    Order.class);
+        }
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("orderId").is(orderId).and("outbox").size(0)),
+                new Update().unset("outboxDueAt"),
+                Order.class);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        relayThread = Thread.ofPlatform()
+                .name("outbox-relay")
+                .daemon(true)
+                .start(this::relayLoop);
+        log.info("Outbox relay started: batchSize={}, pollIntervalMs={}", batchSize, pollIntervalMs);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        relayThread.interrupt();
+        try {
+            // No new publishes after this, then let the outstanding confirms remove their messages
+            relayThread.join(confirmTimeoutMs + 1_000);
+            CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new))
+                    .get(confirmTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // Unconfirmed messages stay in the outbox and are retried after the lease expires
+            log.warn("Outbox relay stopped with unconfirmed messages: orders={}", pending.size());
+        }
+        completionExecutor.shutdown();
+        try {
+            completionExecutor.awaitTermination(1_000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Outbox relay stopped");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
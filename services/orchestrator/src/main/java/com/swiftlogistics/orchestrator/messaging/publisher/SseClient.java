@@ -0,0 +1,145 @@
+package com.swiftlogistics.orchestrator.messaging.publisher;
+
+import lombok.Getter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * One SSE connection with its bounded outbound queue.
+ * Order updates are keyed by orderId, so a newer update for an order replaces
+ * a queued one instead of growing the queue. Other events (connected,
+ * heartbeats) are never coalesced.
+ */
+public class SseClient {
+
+    /**
+     * Event waiting to be sent; data is already serialized
+     */
+    public record Outbound(String name, String id, String data, boolean comment) {
+
+        public static Outbound comment(String text) {
+            return new Outbound(null, null, text, true);
+        }
+
+        SseEmitter.SseEventBuilder toEvent() {
+            if (comment) {
+                return SseEmitter.event().comment(data);
+            }
+            SseEmitter.SseEventBuilder event = SseEmitter.event().name(name);
+            if (id != null) {
+                event.id(id);
+            }
+            return event.data(data);
+        }
+    }
+
+    enum Offer {
+        QUEUED, COALESCED, FULL
+    }
+
+    @Getter
+    private final SseEmitter emitter;
+    @Getter
+    private final String description;
+    private final Consumer<SseClient> unregister;
+    private final int capacity;
+
+    private final Map<Object, Outbound> queue = new LinkedHashMap<>();
+    private long oldestQueuedAt;
+
+    final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile long lastSentAt = System.currentTimeMillis();
+    private volatile long sendingSince;
+
+    SseClient(SseEmitter emitter, String description, Consumer<SseClient> unregister, int capacity) {
+        this.emitter = emitter;
+        this.description = description;
+        this.unregister = unregister;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Queue an event; a null key never coalesces
+     */
+    synchronized Offer offer(Object key, Outbound event) {
+        Object queueKey = key != null ? key : new Object();
+        // Re-insert so queued updates stay in id order
+        boolean coalesced = queue.remove(queueKey) != null;
+        if (!coalesced && queue.size() >= capacity) {
+            return Offer.FULL;
+        }
+        if (queue.isEmpty()) {
+            oldestQueuedAt = System.currentTimeMillis();
+        }
+        queue.put(queueKey, event);
+        return coalesced ? Offer.COALESCED : Offer.QUEUED;
+    }
+
+    synchronized List<Outbound> poll() {
+        List<Outbound> batch = new ArrayList<>(queue.values());
+        queue.clear();
+        return batch;
+    }
+
+    synchronized int depth() {
+        return queue.size();
+    }
+
+    /**
+     * Time the oldest queued event has been waiting, 0 when nothing is queued
+     */
+    synchronized long pendingForMs(long now) {
+        return queue.isEmpty() ? 0 : now - oldestQueuedAt;
+    }
+
+    void sending() {
+        sendingSince = System.currentTimeMillis();
+    }
+
+    void sent() {
+        lastSentAt = System.currentTimeMillis();
+        sendingSince = 0;
+    }
+
+    /**
+     * Time the send in progress has been blocked, 0 when not sending
+     */
+    long sendingForMs(long now) {
+        long since = sendingSince;
+        return since == 0 ? 0 : now - since;
+    }
+
+    long idleForMs(long now) {
+        return now - lastSentAt;
+    }
+
+    boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * Unregister and drop queued events; returns false if already closed
+     */
+    boolean close() {
+        if (!closed.compareAndSet(false, true)) {
+            return false;
+        }
+        unregister.accept(this);
+        synchronized (this) {
+            queue.clear();
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+}
@@ -0,0 +1,228 @@
+package com.swiftlogistics.orchestrator.messaging.publisher;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Sends queued SSE events off the caller's thread.
+ * Publishers only enqueue on an SseClient; each client's queue is drained by
+ * one sender thread at a time, from a pool of sender-threads, so a send
+ * blocked on a half-dead connection holds up only that client as long as
+ * fewer clients than sender threads are blocked. These are platform threads:
+ * SseEmitter writes inside a synchronized block, which would pin the carrier
+ * of a virtual thread. Clients whose queue overflows, whose oldest
+ * event waits longer than the stall timeout, or whose send has been blocked
+ * that long are disconnected; the blocked send itself ends when the container
+ * times out the write. Idle clients get a heartbeat comment so proxies and
+ * dead peers are noticed.
+ */
+@Component
+@Slf4j
+public class SseDispatcher {
+
+    private final Set<SseClient> clients = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders;
+    private final ScheduledExecutorService heartbeats;
+    private final int clientQueueSize;
+    private final long heartbeatIntervalMs;
+    private final long stallTimeoutMs;
+    private final long checkIntervalMs;
+
+    private final MeterRegistry meterRegistry;
+    private final Counter coalesced;
+
+    public SseDispatcher(MeterRegistry meterRegistry,
+                         @Value("${orchestrator.sse.sender-threads:32}") int senderThreads,
+                         @Value("${orchestrator.sse.client-queue-size:64}") int clientQueueSize,
+                         @Value("${orchestrator.sse.heartbeat-interval-ms:15000}") long heartbeatIntervalMs,
+                         @Value("${orchestrator.sse.stall-timeout-ms:30000}") long stallTimeoutMs) {
+        this.meterRegistry = meterRegistry;
+        this.clientQueueSize = clientQueueSize;
+        this.heartbeatIntervalMs = heartbeatIntervalMs;
+        this.stallTimeoutMs = stallTimeoutMs;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor senderPool = new ThreadPoolExecutor(senderThreads, senderThreads,
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "sse-sender-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        senderPool.allowCoreThreadTimeOut(true);
+        this.senders = senderPool;
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sse-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.checkIntervalMs = Math.max(1000, Math.min(heartbeatIntervalMs, stallTimeoutMs) / 2);
+
+        this.coalesced = Counter.builder("sse.events.coalesced")
+                .description("Queued SSE order updates replaced by a newer update")
+                .register(meterRegistry);
+        Gauge.builder("sse.clients", clients, Set::size)
+                .description("Open SSE connections on this node")
+                .register(meterRegistry);
+        Gauge.builder("sse.queue.depth", clients, all -> all.stream().mapToInt(SseClient::depth).sum())
+                .description("SSE events queued on this node")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        heartbeats.scheduleWithFixedDelay(this::checkClients, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Track a new connection; unregister runs once when it is closed for any reason
+     */
+    public SseClient open(SseEmitter emitter, String description, Consumer<SseClient> unregister) {
+        SseClient client = new SseClient(emitter, description, unregister, clientQueueSize);
+        clients.add(client);
+
+        emitter.onCompletion(() -> {
+            log.info("SSE connection completed: {}", description);
+            close(client);
+        });
+        emitter.onTimeout(() -> {
+            log.info("SSE connection timed out: {}", description);
+            close(client);
+        });
+        emitter.onError(e -> {
+            log.error("SSE connection error: {}", description, e);
+            close(client);
+        });
+        return client;
+    }
+
+    /**
+     * Queue an event for a client without blocking; key coalesces events for the same order
+     */
+    public void enqueue(SseClient client, Object key, SseClient.Outbound event) {
+        if (client.isClosed()) {
+            return;
+        }
+        switch (client.offer(key, event)) {
+            case FULL -> {
+                evict(client, "overflow");
+                return;
+            }
+            case COALESCED -> coalesced.increment();
+            case QUEUED -> {
+            }
+        }
+        schedule(client);
+    }
+
+    private void schedule(SseClient client) {
+        if (client.draining.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(client));
+            } catch (Exception e) {
+                // Pool shut down
+                client.draining.set(false);
+            }
+        }
+    }
+
+    private void drain(SseClient client) {
+        while (true) {
+            List<SseClient.Outbound> batch = client.poll();
+            if (batch.isEmpty()) {
+                client.draining.set(false);
+                // An event may have been queued after the poll but before the flag was cleared
+                if (client.depth() == 0 || !client.draining.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+
+            for (SseClient.Outbound event : batch) {
+                if (client.isClosed()) {
+                    client.draining.set(false);
+                    return;
+                }
+                try {
+                    client.sending();
+                    client.getEmitter().send(event.toEvent());
+                    client.sent();
+                } catch (IOException | IllegalStateException e) {
+                    // Likely a disconnected client
+                    log.debug("Failed to send SSE event: {}", client, e);
+                    evict(client, "error");
+                    client.draining.set(false);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void checkClients() {
+        long now = System.currentTimeMillis();
+        for (SseClient client : clients) {
+            try {
+                if (Math.max(client.pendingForMs(now), client.sendingForMs(now)) > stallTimeoutMs) {
+                    evict(client, "stalled");
+                } else if (client.idleForMs(now) >= heartbeatIntervalMs) {
+                    enqueue(client, null, SseClient.Outbound.comment("heartbeat"));
+                }
+            } catch (Exception e) {
+                log.warn("SSE client check failed: {}", client, e);
+            }
+        }
+    }
+
+    private void evict(SseClient client, String reason) {
+        if (!close(client)) {
+            return;
+        }
+        meterRegistry.counter("sse.evictions", "reason", reason).increment();
+        log.warn("Evicted SSE client: {}, reason={}", client, reason);
+        // complete() waits for a send in progress, so it must not run on the caller's thread
+        try {
+            senders.execute(() -> {
+                try {
+                    client.getEmitter().complete();
+                } catch (Exception e) {
+                    log.debug("Failed to complete evicted SSE emitter: {}", client, e);
+                }
+            });
+        } catch (Exception e) {
+            // Pool shut down
+        }
+    }
+
+    private boolean close(SseClient client) {
+        clients.remove(client);
+        return client.close();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+        senders.shutdownNow();
+        for (SseClient client : clients) {
+            close(client);
+        }
+    }
+}
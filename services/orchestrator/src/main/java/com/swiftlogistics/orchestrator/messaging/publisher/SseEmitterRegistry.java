@@ -0,0 +1,57 @@
+package com.swiftlogistics.orchestrator.messaging.publisher;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Active SSE subscribers, keyed by order and by customer.
+ * Each key can have any number of clients, so several tabs can watch the same
+ * order and one customer connection can carry all of that customer's orders.
+ */
+@Component
+@Slf4j
+public class SseEmitterRegistry {
+
+    private final Map<String, Set<SseClient>> orderClients = new ConcurrentHashMap<>();
+    private final Map<String, Set<SseClient>> customerClients = new ConcurrentHashMap<>();
+
+    public void addOrderSubscriber(String orderId, SseClient client) {
+        add(orderClients, orderId, client);
+    }
+
+    public void addCustomerSubscriber(String customerId, SseClient client) {
+        add(customerClients, customerId, client);
+    }
+
+    public void removeOrderSubscriber(String orderId, SseClient client) {
+        remove(orderClients, orderId, client);
+    }
+
+    public void removeCustomerSubscriber(String customerId, SseClient client) {
+        remove(customerClients, customerId, client);
+    }
+
+    public Set<SseClient> getOrderSubscribers(String orderId) {
+        return orderClients.getOrDefault(orderId, Set.of());
+    }
+
+    public Set<SseClient> getCustomerSubscribers(String customerId) {
+        return customerId == null ? Set.of() : customerClients.getOrDefault(customerId, Set.of());
+    }
+
+    private static void add(Map<String, Set<SseClient>> clients, String key, SseClient client) {
+        clients.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(client);
+    }
+
+    private static void remove(Map<String, Set<SseClient>> clients, String key, SseClient client) {
+        // Drop the key together with its last client without racing a concurrent add
+        clients.computeIfPresent(key, (k, set) -> {
+            set.remove(client);
+            return set.isEmpty() ? null : set;
+        });
+    }
+}
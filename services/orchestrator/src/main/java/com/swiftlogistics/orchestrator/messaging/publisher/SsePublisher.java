@@ -1,59 +1,226 @@
 package com.swiftlogistics.orchestrator.messaging.publisher;
 
-import com.swiftlogistics.orchestrator.controller.SseController;
-import com.swiftlogistics.orchestrator.dto.DriverUpdateMessage;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swiftlogistics.orchestrator.config.MessageCodec;
+import com.swiftlogistics.orchestrator.config.RabbitMQConfig;
 import com.swiftlogistics.orchestrator.dto.OrderStatusMessage;
+import com.swiftlogistics.orchestrator.dto.SseBroadcastMessage;
 import com.swiftlogistics.orchestrator.model.Order;
-import com.swiftlogistics.orchestrator.model.Route;
 import com.swiftlogistics.orchestrator.model.enums.OrderStatus;
-import com.swiftlogistics.orchestrator.repository.OrderRepository;
-import com.swiftlogistics.orchestrator.repository.RouteRepository;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Optional;
+import java.util.List;
+import java.util.Set;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class SsePublisher {
 
-    private final SseController sseController;
-    private final RouteRepository routeRepository;
-    private final OrderRepository orderRepository;
+    private static final String ORDER_UPDATE = "order-update";
+
+    private final SseEmitterRegistry sseEmitterRegistry;
+    private final SseReplayBuffer sseReplayBuffer;
+    private final SseDispatcher sseDispatcher;
+    private final MongoTemplate mongoTemplate;
+    private final RabbitTemplate rabbitTemplate;
+    private final MessageCodec messageCodec;
+    private final ObjectMapper objectMapper;
+    private final WebhookDispatcher webhookDispatcher;
+
+    // Broadcasts already delivered on this node, by their node-qualified event id
+    private final Cache<String, Boolean> deliveredEventIds = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(Duration.ofMinutes(5))
+            .build();
+
+    // An order never changes customer, so orderId to customerId needs no invalidation
+    private final Cache<String, String> customerIdsByOrder = Caffeine.newBuilder()
+            .maximumSize(50_000)
+            .build();
+
+    public SsePublisher(SseEmitterRegistry sseEmitterRegistry, SseReplayBuffer sseReplayBuffer,
+                        SseDispatcher sseDispatcher, MongoTemplate mongoTemplate,
+                        RabbitTemplate rabbitTemplate, MessageCodec messageCodec, ObjectMapper objectMapper,
+                        WebhookDispatcher webhookDispatcher) {
+        this.sseEmitterRegistry = sseEmitterRegistry;
+        this.sseReplayBuffer = sseReplayBuffer;
+        this.sseDispatcher = sseDispatcher;
+        this.mongoTemplate = mongoTemplate;
+        this.rabbitTemplate = rabbitTemplate;
+        this.messageCodec = messageCodec;
+        this.objectMapper = objectMapper;
+        this.webhookDispatcher = webhookDispatcher;
+    }
+
+    /**
+     * Register an order subscriber and queue the events it missed since lastEventId
+     */
+    public void subscribeOrder(String orderId, SseEmitter emitter, String lastEventId) {
+        SseReplayBuffer.EventLog eventLog = sseReplayBuffer.forOrder(orderId);
+        SseClient client = sseDispatcher.open(emitter, "order " + orderId,
+                closed -> sseEmitterRegistry.removeOrderSubscriber(orderId, closed));
+        subscribe(eventLog, client, lastEventId,
+                () -> sseEmitterRegistry.addOrderSubscriber(orderId, client));
+    }
+
+    /**
+     * Register a customer subscriber and queue the events it missed since lastEventId
+     */
+    public void subscribeCustomer(String customerId, SseEmitter emitter, String lastEventId) {
+        SseReplayBuffer.EventLog eventLog = sseReplayBuffer.forCustomer(customerId);
+        SseClient client = sseDispatcher.open(emitter, "customer " + customerId,
+                closed -> sseEmitterRegistry.removeCustomerSubscriber(customerId, closed));
+        subscribe(eventLog, client, lastEventId,
+                () -> sseEmitterRegistry.addCustomerSubscriber(customerId, client));
+    }
+
+    private void subscribe(SseReplayBuffer.EventLog eventLog, SseClient client, String lastEventId, Runnable register) {
+        // Holding the log while registering means every event is either replayed or published live, never both
+        synchronized (eventLog) {
+            register.run();
+            String connectedMessage = "Connection established for " + client.getDescription();
+            sseDispatcher.enqueue(client, null, new SseClient.Outbound("connected", null, connectedMessage, false));
+
+            SseReplayBuffer.EventId lastId = SseReplayBuffer.parseEventId(lastEventId);
+            if (lastId == null) {
+                return;
+            }
+            List<SseReplayBuffer.ReplayEvent> missed = eventLog.since(lastId);
+            if (missed == null) {
+                // The last event is not known here, so what was missed is unknown; the client should reload once
+                sseDispatcher.enqueue(client, null, new SseClient.Outbound("resync", null, connectedMessage, false));
+                return;
+            }
+            for (SseReplayBuffer.ReplayEvent event : missed) {
+                sseDispatcher.enqueue(client, event.orderId(), toOutbound(event));
+            }
+            log.debug("Replayed SSE events: {}, lastEventId={}, events={}", client, lastId, missed.size());
+        }
+    }
 
     /**
-     * Publish order status updates via SSE
+     * Publish order status updates via SSE to everyone watching the order or its customer,
+     * on every orchestrator node.
+     * The update is broadcast through RabbitMQ and each node, this one included,
+     * delivers it to its own clients; if the broadcast fails it is delivered here only.
      */
     public void publishOrderStatusUpdate(String orderId, OrderStatus status, String message) {
+        publishOrderStatusUpdate(orderId, customerIdOf(orderId), status, message);
+    }
+
+    /**
+     * Publish an order status update for a caller that already has the order's customer
+     */
+    public void publishOrderStatusUpdate(String orderId, String customerId, OrderStatus status, String message) {
+        OrderStatusMessage orderMessage = OrderStatusMessage.builder()
+                .orderId(orderId)
+                .status(status)
+                .message(message)
+                .timestamp(LocalDateTime.now())
+                .build();
+
+        SseBroadcastMessage broadcast;
+        try {
+            broadcast = SseBroadcastMessage.builder()
+                    .eventId(sseReplayBuffer.nextId().toString())
+                    .orderId(orderId)
+                    .customerId(customerId)
+                    .status(status)
+                    .data(objectMapper.writeValueAsString(orderMessage))
+                    .build();
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize Order Status Update: orderId={}, status={}", orderId, status, e);
+            return;
+        }
+
+        // Webhooks are queued once, by the node that made the change
+        webhookDispatcher.publish(broadcast.getCustomerId(), broadcast.getEventId(), orderMessage);
+
         try {
-            SseEmitter emitter = sseController.getOrderEmitters().get(orderId);
-
-            if (emitter != null) {
-                OrderStatusMessage orderMessage = OrderStatusMessage.builder()
-                        .orderId(orderId)
-                        .status(status)
-                        .message(message)
-                        .timestamp(LocalDateTime.now())
-                        .build();
-
-                emitter.send(SseEmitter.event()
-                        .name("order-update")
-                        .id(String.valueOf(System.currentTimeMillis()))
-                        .data(orderMessage));
-
-                log.info("Published Order Status Update via SSE: orderId={}, status={}", orderId, status);
-            } else {
-                log.debug("No active SSE connection for order: {}", orderId);
+            MessageProperties properties = new MessageProperties();
+            properties.setDeliveryMode(MessageDeliveryMode.NON_PERSISTENT);
+            rabbitTemplate.send(RabbitMQConfig.EXCHANGE_SSE_BROADCAST, "",
+                    messageCodec.encode(RabbitMQConfig.EXCHANGE_SSE_BROADCAST, broadcast, properties));
+        } catch (AmqpException e) {
+            log.warn("SSE broadcast failed, delivering locally only: orderId={}, status={}", orderId, status, e);
+            deliverLocally(broadcast);
+        }
+    }
+
+    /**
+     * Deliver a broadcast update to the clients connected to this node.
+     * Each update is delivered at most once per node even if it arrives twice.
+     */
+    public void deliverLocally(SseBroadcastMessage broadcast) {
+        SseReplayBuffer.EventId eventId = SseReplayBuffer.EventId.parse(broadcast.getEventId());
+        if (eventId == null) {
+            log.warn("Dropping SSE broadcast without a valid event id: orderId={}, eventId={}",
+                    broadcast.getOrderId(), broadcast.getEventId());
+            return;
+        }
+        if (deliveredEventIds.asMap().putIfAbsent(eventId.toString(), Boolean.TRUE) != null) {
+            log.debug("Skipping duplicate SSE broadcast: eventId={}", eventId);
+            return;
+        }
+
+        String orderId = broadcast.getOrderId();
+        String customerId = broadcast.getCustomerId();
+        SseReplayBuffer.ReplayEvent event = new SseReplayBuffer.ReplayEvent(
+                eventId, System.currentTimeMillis(), orderId, broadcast.getData());
+
+        int sent = publish(sseReplayBuffer.forOrder(orderId), event,
+                sseEmitterRegistry.getOrderSubscribers(orderId));
+
+        if (customerId != null) {
+            sent += publish(sseReplayBuffer.forCustomer(customerId), event,
+                    sseEmitterRegistry.getCustomerSubscribers(customerId));
+        }
+
+        if (sent == 0) {
+            log.debug("No active SSE connection for order: {}", orderId);
+        } else {
+            log.info("Queued Order Status Update via SSE: orderId={}, eventId={}, subscribers={}",
+                    orderId, event.id(), sent);
+        }
+    }
+
+    private int publish(SseReplayBuffer.EventLog eventLog, SseReplayBuffer.ReplayEvent event,
+                        Set<SseClient> subscribers) {
+        SseClient.Outbound outbound = toOutbound(event);
+        synchronized (eventLog) {
+            eventLog.append(event);
+            // Only queues; the dispatcher sends, so a slow client never holds up this thread
+            for (SseClient client : subscribers) {
+                sseDispatcher.enqueue(client, event.orderId(), outbound);
             }
-        } catch (IOException | IllegalStateException e) {
-            log.error("Failed to publish Order Status Update via SSE: orderId={}, status={}", orderId, status, e);
-            // Remove the emitter if there's an error (likely disconnected client)
-            sseController.getOrderEmitters().remove(orderId);
+            return subscribers.size();
         }
     }
-}
\ No newline at end of file
+
+    private static SseClient.Outbound toOutbound(SseReplayBuffer.ReplayEvent event) {
+        return new SseClient.Outbound(ORDER_UPDATE, event.id().toString(), event.data(), false);
+    }
+
+    private String customerIdOf(String orderId) {
+        return customerIdsByOrder.get(orderId, id -> {
+            Query query = new Query(Criteria.where("orderId").is(id));
+            query.fields().include("customerId");
+            Order order = mongoTemplate.findOne(query, Order.class);
+            return order == null ? null : order.getCustomerId();
+        });
+    }
+}
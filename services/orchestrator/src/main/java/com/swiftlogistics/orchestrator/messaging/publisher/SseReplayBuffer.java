@@ -0,0 +1,157 @@
+package com.swiftlogistics.orchestrator.messaging.publisher;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recent SSE events per order and per customer, so reconnecting clients can be
+ * sent what they missed since their Last-Event-ID.
+ * Event ids are "<node>-<sequence>": the node part is chosen at random when the
+ * process starts and the sequence counts up on that node, so ids never collide
+ * between nodes or across restarts. Ids are only ordered within one node; a log
+ * keeps events in the order they arrived, so replay resumes after the position
+ * of the client's last event; a client whose last event is not in the log is
+ * told to resync instead. Each log keeps at most replay-size events no
+ * older than replay-ttl-seconds; logs that see no traffic for that long are
+ * dropped.
+ */
+@Component
+public class SseReplayBuffer {
+
+    public record ReplayEvent(EventId id, long createdAtMillis, String orderId, String data) {
+    }
+
+    /**
+     * Event id issued by one node; sequences are only comparable for the same node
+     */
+    public record EventId(String node, long sequence) {
+
+        /**
+         * Parse an id written by toString; null when it is not one of ours
+         */
+        public static EventId parse(String value) {
+            if (value == null) {
+                return null;
+            }
+            int separator = value.lastIndexOf('-');
+            if (separator <= 0) {
+                return null;
+            }
+            try {
+                return new EventId(value.substring(0, separator), Long.parseLong(value.substring(separator + 1)));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return node + "-" + sequence;
+        }
+    }
+
+    /**
+     * Bounded event log of one order or customer.
+     * Callers synchronize on the log to make appending and fan-out atomic with
+     * a subscriber's replay.
+     */
+    public static class EventLog {
+
+        private final Deque<ReplayEvent> events = new ArrayDeque<>();
+        private final int maxSize;
+        private final long maxAgeMillis;
+
+        EventLog(int maxSize, long maxAgeMillis) {
+            this.maxSize = maxSize;
+            this.maxAgeMillis = maxAgeMillis;
+        }
+
+        public synchronized void append(ReplayEvent event) {
+            events.addLast(event);
+            while (events.size() > maxSize) {
+                events.removeFirst();
+            }
+            evictExpired(event.createdAtMillis());
+        }
+
+        /**
+         * Events after the given id, or null when the id is not in this log: it
+         * was evicted, or the log is new to this node (expired, created after a
+         * restart, or never fed here), so what the client missed is unknown
+         */
+        public synchronized List<ReplayEvent> since(EventId lastEventId) {
+            evictExpired(System.currentTimeMillis());
+            List<ReplayEvent> missed = new ArrayList<>();
+            boolean found = false;
+            for (ReplayEvent event : events) {
+                if (found) {
+                    missed.add(event);
+                } else if (event.id().equals(lastEventId)) {
+                    found = true;
+                }
+            }
+            return found ? missed : null;
+        }
+
+        private void evictExpired(long now) {
+            while (!events.isEmpty() && now - events.peekFirst().createdAtMillis() > maxAgeMillis) {
+                events.removeFirst();
+            }
+        }
+    }
+
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Cache<String, EventLog> orderLogs;
+    private final Cache<String, EventLog> customerLogs;
+    private final int replaySize;
+    private final long replayTtlMillis;
+
+    public SseReplayBuffer(@Value("${orchestrator.sse.replay-size:50}") int replaySize,
+                           @Value("${orchestrator.sse.replay-ttl-seconds:600}") long replayTtlSeconds,
+                           @Value("${orchestrator.sse.replay-max-keys:100000}") long maxKeys) {
+        this.replaySize = replaySize;
+        this.replayTtlMillis = Duration.ofSeconds(replayTtlSeconds).toMillis();
+        this.orderLogs = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofSeconds(replayTtlSeconds))
+                .build();
+        this.customerLogs = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofSeconds(replayTtlSeconds))
+                .build();
+    }
+
+    public EventId nextId() {
+        return new EventId(nodeId, sequence.incrementAndGet());
+    }
+
+    public EventLog forOrder(String orderId) {
+        return orderLogs.get(orderId, id -> new EventLog(replaySize, replayTtlMillis));
+    }
+
+    public EventLog forCustomer(String customerId) {
+        return customerLogs.get(customerId, id -> new EventLog(replaySize, replayTtlMillis));
+    }
+
+    /**
+     * Parse a Last-Event-ID header; null when absent or not one of our ids
+     */
+    public static EventId parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        return EventId.parse(lastEventId.trim());
+    }
+}
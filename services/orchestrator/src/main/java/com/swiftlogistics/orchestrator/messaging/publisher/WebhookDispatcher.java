@@ -0,0 +1,381 @@
+package com.swiftlogistics.orchestrator.messaging.publisher;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swiftlogistics.orchestrator.dto.OrderStatusMessage;
+import com.swiftlogistics.orchestrator.dto.WebhookDelivery;
+import com.swiftlogistics.orchestrator.dto.WebhookEvent;
+import com.swiftlogistics.orchestrator.model.WebhookEndpoint;
+import com.swiftlogistics.orchestrator.service.WebhookService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Delivers order status changes to customer webhooks.
+ * Every endpoint has its own bounded queue. Updates that arrive within the
+ * linger time are POSTed together, up to batch-size per request, with at most
+ * max-concurrency requests in flight per endpoint. Requests are asynchronous
+ * and time-limited, so a slow receiver only holds up its own queue. Failed
+ * batches are retried first, with exponential backoff and jitter, under the
+ * same delivery id; a batch that fails max-attempts times is dropped.
+ * The queue of a deleted endpoint is dropped with it: right away for deletes
+ * made through this node, and on its next dispatch otherwise.
+ * Before each request the endpoint's host is resolved again and the request
+ * fails unless it still resolves only to public addresses (see WebhookService).
+ * Each request is signed with the endpoint secret:
+ * X-Swift-Signature = sha256=hex(HMAC-SHA256(secret, timestamp + "." + body)).
+ */
+@Component
+@Slf4j
+public class WebhookDispatcher {
+
+    private static final String SIGNATURE_ALGORITHM = "HmacSHA256";
+
+    private record Batch(String deliveryId, List<WebhookEvent> events, int attempts) {
+
+        Batch failed() {
+            return new Batch(deliveryId, events, attempts + 1);
+        }
+    }
+
+    private static class EndpointQueue {
+        volatile WebhookEndpoint endpoint;
+        final Deque<WebhookEvent> pending = new ArrayDeque<>();
+        final Deque<Batch> retries = new ArrayDeque<>();
+        long retryAt;
+        int inFlight;
+        boolean flushScheduled;
+        boolean removed;
+
+        EndpointQueue(WebhookEndpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        synchronized int depth() {
+            return pending.size() + retries.stream().mapToInt(batch -> batch.events().size()).sum();
+        }
+    }
+
+    private final WebhookService webhookService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, EndpointQueue> queues = new ConcurrentHashMap<>();
+    private final HttpClient httpClient;
+    private final ExecutorService httpExecutor;
+    private final ScheduledExecutorService timer;
+
+    private final int batchSize;
+    private final long lingerMs;
+    private final int maxQueueSize;
+    private final int maxConcurrency;
+    private final int maxAttempts;
+    private final long backoffInitialMs;
+    private final long backoffMaxMs;
+    private final Duration requestTimeout;
+    private final Predicate<String> hostAllowed;
+
+    @Autowired
+    public WebhookDispatcher(WebhookService webhookService,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${orchestrator.webhooks.batch-size:20}") int batchSize,
+                             @Value("${orchestrator.webhooks.linger-ms:200}") long lingerMs,
+                             @Value("${orchestrator.webhooks.max-queue-size:1000}") int maxQueueSize,
+                             @Value("${orchestrator.webhooks.max-concurrency:1}") int maxConcurrency,
+                             @Value("${orchestrator.webhooks.max-attempts:8}") int maxAttempts,
+                             @Value("${orchestrator.webhooks.backoff-initial-ms:1000}") long backoffInitialMs,
+                             @Value("${orchestrator.webhooks.backoff-max-ms:300000}") long backoffMaxMs,
+                             @Value("${orchestrator.webhooks.request-timeout-ms:5000}") long requestTimeoutMs,
+                             @Value("${orchestrator.webhooks.http-threads:4}") int httpThreads) {
+        this(webhookService, objectMapper, meterRegistry, batchSize, lingerMs, maxQueueSize, maxConcurrency,
+                maxAttempts, backoffInitialMs, backoffMaxMs, requestTimeoutMs, httpThreads,
+                WebhookService::isPublicHost);
+    }
+
+    WebhookDispatcher(WebhookService webhookService, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                      int batchSize, long lingerMs, int maxQueueSize, int maxConcurrency, int maxAttempts,
+                      long backoffInitialMs, long backoffMaxMs, long requestTimeoutMs, int httpThreads,
+                      Predicate<String> hostAllowed) {
+        this.hostAllowed = hostAllowed;
+        this.webhookService = webhookService;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.lingerMs = lingerMs;
+        this.maxQueueSize = maxQueueSize;
+        this.maxConcurrency = maxConcurrency;
+        this.maxAttempts = maxAttempts;
+        this.backoffInitialMs = backoffInitialMs;
+        this.backoffMaxMs = backoffMaxMs;
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.httpExecutor = Executors.newFixedThreadPool(httpThreads, runnable -> {
+            Thread thread = new Thread(runnable, "webhook-http-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "webhook-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.httpClient = HttpClient.newBuilder()
+                .executor(httpExecutor)
+                .connectTimeout(requestTimeout)
+                .build();
+
+        Gauge.builder("webhook.queue.depth", queues,
+                        all -> all.values().stream().mapToInt(EndpointQueue::depth).sum())
+                .description("Webhook events waiting for delivery")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queue a status change for every webhook of the order's customer
+     */
+    public void publish(String customerId, String eventId, OrderStatusMessage statusMessage) {
+        if (customerId == null) {
+            return;
+        }
+        List<WebhookEndpoint> endpoints = webhookService.getEndpoints(customerId);
+        if (endpoints.isEmpty()) {
+            return;
+        }
+
+        WebhookEvent event = WebhookEvent.builder()
+                .eventId(eventId)
+                .orderId(statusMessage.getOrderId())
+                .status(statusMessage.getStatus())
+                .message(statusMessage.getMessage())
+                .timestamp(statusMessage.getTimestamp())
+                .build();
+
+        for (WebhookEndpoint endpoint : endpoints) {
+            EndpointQueue queue = queues.computeIfAbsent(endpoint.getEndpointId(), id -> new EndpointQueue(endpoint));
+            queue.endpoint = endpoint;
+            synchronized (queue) {
+                if (queue.pending.size() >= maxQueueSize) {
+                    // Keep the newest updates for a receiver that cannot keep up
+                    queue.pending.removeFirst();
+                    meterRegistry.counter("webhook.events.dropped", "reason", "overflow").increment();
+                }
+                queue.pending.addLast(event);
+            }
+            schedule(queue);
+        }
+    }
+
+    /**
+     * Drop the queue of a deleted endpoint along with its undelivered events
+     */
+    public void remove(String endpointId) {
+        EndpointQueue queue = queues.remove(endpointId);
+        if (queue == null) {
+            return;
+        }
+        int dropped;
+        synchronized (queue) {
+            queue.removed = true;
+            dropped = queue.depth();
+            queue.pending.clear();
+            queue.retries.clear();
+        }
+        if (dropped > 0) {
+            meterRegistry.counter("webhook.events.dropped", "reason", "deleted").increment(dropped);
+        }
+        log.info("Webhook queue removed: endpointId={}, droppedEvents={}", endpointId, dropped);
+    }
+
+    private void schedule(EndpointQueue queue) {
+        long delayMs;
+        synchronized (queue) {
+            if (queue.removed || queue.flushScheduled || queue.inFlight >= maxConcurrency) {
+                return;
+            }
+            if (!queue.retries.isEmpty()) {
+                delayMs = Math.max(0, queue.retryAt - System.currentTimeMillis());
+            } else if (!queue.pending.isEmpty()) {
+                delayMs = queue.pending.size() >= batchSize ? 0 : lingerMs;
+            } else {
+                return;
+            }
+            queue.flushScheduled = true;
+        }
+        try {
+            timer.schedule(() -> dispatch(queue), delayMs, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            // Shutting down
+            synchronized (queue) {
+                queue.flushScheduled = false;
+            }
+        }
+    }
+
+    private void dispatch(EndpointQueue queue) {
+        WebhookEndpoint endpoint = queue.endpoint;
+        if (!isRegistered(endpoint)) {
+            // Deleted on another node
+            remove(endpoint.getEndpointId());
+            return;
+        }
+
+        Batch batch;
+        synchronized (queue) {
+            queue.flushScheduled = false;
+            if (queue.removed || queue.inFlight >= maxConcurrency) {
+                return;
+            }
+            if (!queue.retries.isEmpty()) {
+                // Retries go first and hold back newer updates to keep them in order
+                if (queue.retryAt > System.currentTimeMillis()) {
+                    batch = null;
+                } else {
+                    batch = queue.retries.pollFirst();
+                }
+            } else {
+                List<WebhookEvent> events = new ArrayList<>(Math.min(batchSize, queue.pending.size()));
+                while (events.size() < batchSize && !queue.pending.isEmpty()) {
+                    events.add(queue.pending.pollFirst());
+                }
+                batch = events.isEmpty() ? null : new Batch(UUID.randomUUID().toString(), events, 0);
+            }
+            if (batch != null) {
+                queue.inFlight++;
+            }
+        }
+
+        if (batch != null) {
+            send(queue, batch);
+        }
+        schedule(queue);
+    }
+
+    private void send(EndpointQueue queue, Batch batch) {
+        WebhookEndpoint endpoint = queue.endpoint;
+        HttpRequest request;
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(WebhookDelivery.builder()
+                    .deliveryId(batch.deliveryId())
+                    .customerId(endpoint.getCustomerId())
+                    .events(batch.events())
+                    .build());
+            String timestamp = String.valueOf(System.currentTimeMillis() / 1000);
+
+            request = HttpRequest.newBuilder(URI.create(endpoint.getUrl()))
+                    .timeout(requestTimeout)
+                    .header("Content-Type", "application/json")
+                    .header("X-Swift-Delivery", batch.deliveryId())
+                    .header("X-Swift-Timestamp", timestamp)
+                    .header("X-Swift-Signature", "sha256=" + sign(endpoint.getSecret(), timestamp, body))
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                    .build();
+        } catch (Exception e) {
+            log.error("Failed to build webhook request: endpointId={}", endpoint.getEndpointId(), e);
+            completed(queue, batch, false);
+            return;
+        }
+
+        // Resolving may block, so it runs on an HTTP thread rather than the dispatcher's
+        CompletableFuture.supplyAsync(() -> hostAllowed.test(request.uri().getHost()), httpExecutor)
+                .thenCompose(allowed -> {
+                    if (!allowed) {
+                        meterRegistry.counter("webhook.requests.blocked").increment();
+                        throw new CompletionException(new IllegalStateException(
+                                "Webhook host does not resolve to public addresses only: " + request.uri().getHost()));
+                    }
+                    return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding());
+                })
+                .whenComplete((response, error) -> {
+                    boolean delivered = error == null && response.statusCode() / 100 == 2;
+                    if (!delivered) {
+                        log.warn("Webhook delivery failed: endpointId={}, deliveryId={}, attempt={}, status={}",
+                                endpoint.getEndpointId(), batch.deliveryId(), batch.attempts() + 1,
+                                error == null ? response.statusCode() : error.toString());
+                    }
+                    completed(queue, batch, delivered);
+                });
+    }
+
+    private void completed(EndpointQueue queue, Batch batch, boolean delivered) {
+        synchronized (queue) {
+            queue.inFlight--;
+            if (delivered) {
+                meterRegistry.counter("webhook.deliveries", "outcome", "delivered").increment();
+            } else {
+                Batch failed = batch.failed();
+                if (failed.attempts() >= maxAttempts) {
+                    meterRegistry.counter("webhook.deliveries", "outcome", "dropped").increment();
+                    log.error("Dropping webhook delivery after {} attempts: endpointId={}, deliveryId={}, events={}",
+                            failed.attempts(), queue.endpoint.getEndpointId(), batch.deliveryId(), batch.events().size());
+                } else {
+                    meterRegistry.counter("webhook.deliveries", "outcome", "retried").increment();
+                    queue.retries.addFirst(failed);
+                    queue.retryAt = System.currentTimeMillis() + backoffMs(failed.attempts());
+                }
+            }
+        }
+        schedule(queue);
+    }
+
+    private boolean isRegistered(WebhookEndpoint endpoint) {
+        try {
+            return webhookService.getEndpoints(endpoint.getCustomerId()).stream()
+                    .anyMatch(registered -> registered.getEndpointId().equals(endpoint.getEndpointId()));
+        } catch (Exception e) {
+            // Keep delivering while the endpoints cannot be read
+            log.warn("Could not read webhook endpoints: customerId={}", endpoint.getCustomerId(), e);
+            return true;
+        }
+    }
+
+    private long backoffMs(int attempts) {
+        long backoff = Math.min(backoffMaxMs, backoffInitialMs << Math.min(attempts - 1, 20));
+        // Jitter spreads retries of endpoints that failed together
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    private static String sign(String secret, String timestamp, byte[] body) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance(SIGNATURE_ALGORITHM);
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), SIGNATURE_ALGORITHM));
+        mac.update((timestamp + ".").getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(mac.doFinal(body));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+        httpExecutor.shutdownNow();
+    }
+}
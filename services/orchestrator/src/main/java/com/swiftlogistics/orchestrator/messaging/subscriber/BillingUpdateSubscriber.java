@@ -1,6 +1,7 @@
 package com.swiftlogistics.orchestrator.messaging.subscriber;
 
 import com.swiftlogistics.orchestrator.config.RabbitMQConfig;
+import com.swiftlogistics.orchestrator.config.RabbitTemplateConfig;
 import com.swiftlogistics.orchestrator.dto.BillingUpdateMessage;
 import com.swiftlogistics.orchestrator.messaging.publisher.SsePublisher;
 import com.swiftlogistics.orchestrator.model.enums.EventSource;
@@ -8,11 +9,17 @@ import com.swiftlogistics.orchestrator.model.enums.EventType;
 import com.swiftlogistics.orchestrator.model.enums.OrderStatus;
 import com.swiftlogistics.orchestrator.service.OrderService;
 import com.swiftlogistics.orchestrator.service.EventService;
+import com.swiftlogistics.orchestrator.service.OrderUnitOfWork;
+import com.swiftlogistics.orchestrator.service.UnitOfWorkService;
+import com.rabbitmq.client.Channel;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -21,90 +28,125 @@ public class BillingUpdateSubscriber {
     private final OrderService orderService;
     private final EventService eventService;
     private final SsePublisher ssePublisher;
+    private final UnitOfWorkService unitOfWorkService;
+    private final OrderUpdateBatcher orderUpdateBatcher;
 
     /**
      * Step 2: Listen for billing updates from CMS Adapter
-     * When billing is completed, update order status and trigger warehouse processing
+     * When billing is completed, update order status and trigger warehouse processing.
+     * Updates arrive in batches and are written together.
+     */
+    @RabbitListener(queues = RabbitMQConfig.QUEUE_BILLING_UPDATES,
+            containerFactory = RabbitTemplateConfig.BATCH_LISTENER_FACTORY)
+    public void handleBillingUpdates(List<Message> messages, Channel channel) {
+        orderUpdateBatcher.process(messages, channel, BillingUpdateMessage.class,
+                BillingUpdateMessage::getOrderId, BillingUpdateMessage::getStatus,
+                this::stageBillingUpdate, this::handleBillingUpdate);
+    }
+
+    /**
+     * Handle a single billing update in its own unit of work; failures are
+     * rethrown so the message is retried later
      */
-    @RabbitListener(queues = RabbitMQConfig.QUEUE_BILLING_UPDATES)
     public void handleBillingUpdate(BillingUpdateMessage billingUpdate) {
         try {
             log.info("Received billing update: orderId={}, status={}",
                     billingUpdate.getOrderId(), billingUpdate.getStatus());
 
-            // Process different billing statuses
-            switch (billingUpdate.getStatus()) {
-                case "BILLED" -> handleBillingSuccess(billingUpdate);
-                case "FAILED" -> handleBillingFailure(billingUpdate);
-                case "PENDING" -> handleBillingPending(billingUpdate);
-                default -> log.warn("Unknown billing status: {} for orderId: {}", 
-                        billingUpdate.getStatus(), billingUpdate.getOrderId());
+            OrderUnitOfWork work = unitOfWorkService.begin(billingUpdate.getOrderId());
+            Runnable afterCommit = stageBillingUpdate(work, billingUpdate);
+
+            if (!work.commit()) {
+                log.info("Ignoring billing update for orderId: {}, status: {}, already processed",
+                        billingUpdate.getOrderId(), billingUpdate.getStatus());
+                return;
+            }
+            if (afterCommit != null) {
+                afterCommit.run();
             }
 
         } catch (Exception e) {
             log.error("Error processing billing update: orderId={}",
                     billingUpdate.getOrderId(), e);
-            
+
             // Log failure event
             eventService.logFailedEvent(
                     billingUpdate.getOrderId(), EventType.BILLING_FAILED,
                     EventSource.ORCHESTRATOR, "Failed to process billing update: " + e.getMessage()
             );
+            throw e;
         }
     }
 
-    private void handleBillingSuccess(BillingUpdateMessage billingUpdate) {
+    /**
+     * Record a billing update in the unit of work; returns the notification to send once it applied
+     */
+    private Runnable stageBillingUpdate(OrderUnitOfWork work, BillingUpdateMessage billingUpdate) {
+        // Process different billing statuses
+        return switch (billingUpdate.getStatus()) {
+            case "BILLED" -> stageBillingSuccess(work, billingUpdate);
+            case "FAILED" -> stageBillingFailure(work, billingUpdate);
+            case "PENDING" -> stageBillingPending(work, billingUpdate);
+            default -> {
+                log.warn("Unknown billing status: {} for orderId: {}",
+                        billingUpdate.getStatus(), billingUpdate.getOrderId());
+                yield null;
+            }
+        };
+    }
+
+    private Runnable stageBillingSuccess(OrderUnitOfWork work, BillingUpdateMessage billingUpdate) {
         // Update order status to BILLED
-        orderService.updateOrderStatus(billingUpdate.getOrderId(), OrderStatus.BILLED, "COMPLETED", billingUpdate.getBilledAmount());
-        
+        orderService.updateOrderStatus(work, OrderStatus.BILLED, "COMPLETED", billingUpdate.getBilledAmount());
+
         // Log billing completed event
-        eventService.logSuccessEvent(
-                billingUpdate.getOrderId(), EventType.BILLING_COMPLETED,
+        work.logSuccessEvent(
+                EventType.BILLING_COMPLETED,
                 EventSource.CMS_ADAPTER, "Billing completed successfully"
         );
 
-        // Notify clients via SSE
-        ssePublisher.publishOrderStatusUpdate(
-                billingUpdate.getOrderId(), OrderStatus.BILLED, "Billing completed successfully"
-        );
-        
         // Trigger warehouse processing
-        orderService.sendToWarehouse(billingUpdate.getOrderId());
-        
-        log.info("Billing completed successfully for orderId: {}", billingUpdate.getOrderId());
+        orderService.sendToWarehouse(work);
+
+        return () -> {
+            // Notify clients via SSE
+            ssePublisher.publishOrderStatusUpdate(billingUpdate.getOrderId(), work.order().getCustomerId(),
+                    OrderStatus.BILLED, "Billing completed successfully");
+
+            log.info("Billing completed successfully for orderId: {}", billingUpdate.getOrderId());
+        };
     }
 
-    private void handleBillingFailure(BillingUpdateMessage billingUpdate) {
+    private Runnable stageBillingFailure(OrderUnitOfWork work, BillingUpdateMessage billingUpdate) {
         // Update order status to FAILED
-        orderService.updateOrderStatus(billingUpdate.getOrderId(), OrderStatus.BILLING_FAILED,"FAILED", null);
-        
+        orderService.updateOrderStatus(work, OrderStatus.BILLING_FAILED, "FAILED", null);
+
         // Log billing failure event
-        eventService.logFailedEvent(
-                billingUpdate.getOrderId(), EventType.BILLING_FAILED,
+        work.logFailedEvent(
+                EventType.BILLING_FAILED,
                 EventSource.CMS_ADAPTER, "Billing failed: "
         );
 
-        // Notify clients via SSE
-        ssePublisher.publishOrderStatusUpdate(
-                billingUpdate.getOrderId(), OrderStatus.BILLING_FAILED, "Billing failed: "
-        );
-        
-        log.error("Billing failed for orderId: {}, reason: {}", 
-                billingUpdate.getOrderId(), "Billing failed in CMS");
+        return () -> {
+            // Notify clients via SSE
+            ssePublisher.publishOrderStatusUpdate(billingUpdate.getOrderId(), work.order().getCustomerId(),
+                    OrderStatus.BILLING_FAILED, "Billing failed: ");
+
+            log.error("Billing failed for orderId: {}, reason: {}",
+                    billingUpdate.getOrderId(), "Billing failed in CMS");
+        };
     }
 
-    private void handleBillingPending(BillingUpdateMessage billingUpdate) {
+    private Runnable stageBillingPending(OrderUnitOfWork work, BillingUpdateMessage billingUpdate) {
         // Log pending status but don't change order status yet
-        eventService.logPendingEvent(
-                billingUpdate.getOrderId(), EventType.BILLING_PENDING,
-                EventSource.CMS_ADAPTER, "Billing is pending"
-        );
+        work.logPendingEvent(EventType.BILLING_PENDING, EventSource.CMS_ADAPTER, "Billing is pending");
 
-        // Notify clients via SSE
-        ssePublisher.publishOrderStatusUpdate(
-                billingUpdate.getOrderId(), OrderStatus.BILLING_PENDING, "Billing is pending"
-        );
+        return () -> {
+            // Notify clients via SSE
+            ssePublisher.publishOrderStatusUpdate(billingUpdate.getOrderId(), work.order().getCustomerId(),
+                    OrderStatus.BILLING_PENDING, "Billing is pending");
 
-        log.info("Billing pending for orderId: {}", billingUpdate.getOrderId());
+            log.info("Billing pending for orderId: {}", billingUpdate.getOrderId());
+        };
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,29 @@
+package com.swiftlogistics.orchestrator.messaging.subscriber;
+
+import com.swiftlogistics.orchestrator.dto.DriverPresence;
+import com.swiftlogistics.orchestrator.service.DriverPresenceRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DriverPresenceSubscriber {
+
+    private final DriverPresenceRegistry driverPresenceRegistry;
+
+    /**
+     * Receive presence changes made on any orchestrator node, including this one,
+     * and apply them to this node's registry
+     */
+    @RabbitListener(queues = "#{driverPresenceQueue.name}")
+    public void handlePresence(DriverPresence presence) {
+        try {
+            driverPresenceRegistry.apply(presence);
+        } catch (Exception e) {
+            log.error("Error applying driver presence: driverId={}", presence.getDriverId(), e);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.swiftlogistics.orchestrator.messaging.subscriber;
+
+import com.swiftlogistics.orchestrator.dto.DriverUpdateMessage;
+import com.swiftlogistics.orchestrator.dto.OrderSummary;
+import com.swiftlogistics.orchestrator.messaging.publisher.DriverPushPublisher;
+import com.swiftlogistics.orchestrator.service.DriverInbox;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DriverPushSubscriber {
+
+    private final DriverPushPublisher driverPushPublisher;
+    private final DriverInbox driverInbox;
+
+    /**
+     * Receive driver updates published by any orchestrator node and push them
+     * to the driver sessions connected here and into this node's driver inbox
+     */
+    @RabbitListener(queues = "#{driverPushQueue.name}")
+    public void handleDriverUpdate(DriverUpdateMessage update) {
+        try {
+            driverPushPublisher.deliverLocally(update);
+            // Assignments made on other nodes; the node that made one has already added it
+            driverInbox.assignIfAbsent(OrderSummary.builder()
+                    .orderId(update.getOrderId())
+                    .status(update.getStatus())
+                    .deliveryAddress(update.getDeliveryAddress())
+                    .city(update.getCity())
+                    .driverId(update.getDriverId())
+                    .build());
+        } catch (Exception e) {
+            log.error("Error pushing driver update: orderId={}, driverId={}",
+                    update.getOrderId(), update.getDriverId(), e);
+        }
+    }
+}
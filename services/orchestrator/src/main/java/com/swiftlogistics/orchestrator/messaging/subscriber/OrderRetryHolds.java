@@ -0,0 +1,116 @@
+package com.swiftlogistics.orchestrator.messaging.subscriber;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Orders of a work queue that have an update waiting in the retry tiers.
+ * Later updates for such an order are held back behind it: they are sent to
+ * the retry queue the failed update is in, so the queue's FIFO expiry brings
+ * them back after it. An update that comes back before the head of its hold
+ * is sent round again. Once the head is parked, its followers are parked too.
+ * Holds are kept in memory on the node that is the queue's active consumer;
+ * they are lost when that node goes away.
+ */
+@Component
+public class OrderRetryHolds {
+
+    private record Key(String queue, String orderId) {
+    }
+
+    private static class Hold {
+        final Deque<String> outstanding = new ArrayDeque<>();
+        String destination;
+        boolean parked;
+    }
+
+    private final Map<Key, Hold> holds = new HashMap<>();
+
+    public OrderRetryHolds(MeterRegistry meterRegistry) {
+        Gauge.builder("orders.retry.holds", this, OrderRetryHolds::size)
+                .description("Orders whose updates wait behind one in the retry tiers")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Decide what to do with an update as it arrives: null to process it, or
+     * the queue to hold it back to. Holding back is recorded with heldBack once
+     * the update is in that queue.
+     */
+    public synchronized String admit(String queue, String orderId, String messageId) {
+        Key key = new Key(queue, orderId);
+        Hold hold = holds.get(key);
+        if (hold == null) {
+            return null;
+        }
+        if (!hold.parked && messageId.equals(hold.outstanding.peekFirst())) {
+            release(key, hold, messageId);
+            return null;
+        }
+        return hold.destination;
+    }
+
+    /**
+     * Record that an update failed and went to the given retry or parking queue;
+     * it is now the first update of its order
+     */
+    public synchronized void failed(String queue, String orderId, String messageId, String destination,
+                                    boolean parked) {
+        Key key = new Key(queue, orderId);
+        Hold hold = holds.computeIfAbsent(key, k -> new Hold());
+        hold.destination = destination;
+        if (parked) {
+            hold.parked = true;
+            release(key, hold, messageId);
+        } else {
+            hold.outstanding.remove(messageId);
+            hold.outstanding.addFirst(messageId);
+        }
+    }
+
+    /**
+     * Record that an update was held back to the given queue, behind the failed
+     * one of its order, or parked after it
+     */
+    public synchronized void heldBack(String queue, String orderId, String messageId, String destination) {
+        Key key = new Key(queue, orderId);
+        Hold hold = holds.computeIfAbsent(key, k -> new Hold());
+        if (hold.destination == null) {
+            hold.destination = destination;
+        }
+        if (hold.parked) {
+            release(key, hold, messageId);
+        } else if (!hold.outstanding.contains(messageId)) {
+            hold.outstanding.addLast(messageId);
+        }
+    }
+
+    /**
+     * Record that an update that was let through went back to its work queue;
+     * if its order still has updates held back, it stays first in line
+     */
+    public synchronized void requeued(String queue, String orderId, String messageId) {
+        Hold hold = holds.get(new Key(queue, orderId));
+        if (hold != null && !hold.parked) {
+            hold.outstanding.remove(messageId);
+            hold.outstanding.addFirst(messageId);
+        }
+    }
+
+    synchronized int size() {
+        return holds.size();
+    }
+
+    private void release(Key key, Hold hold, String messageId) {
+        hold.outstanding.remove(messageId);
+        if (hold.outstanding.isEmpty()) {
+            holds.remove(key);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.swiftlogistics.orchestrator.messaging.subscriber;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs order updates on a fixed set of single-threaded stripes, chosen by a
+ * hash of the order id. Work for one order always runs on the same thread,
+ * whichever listener it came from, so two updates for an order never run at
+ * the same time while different orders are handled in parallel.
+ */
+@Component
+@Slf4j
+public class OrderStripedExecutor {
+
+    private final ThreadPoolExecutor[] stripes;
+
+    public OrderStripedExecutor(MeterRegistry meterRegistry,
+                                @Value("${orchestrator.listeners.stripes:0}") int stripeCount) {
+        int count = stripeCount > 0 ? stripeCount : Runtime.getRuntime().availableProcessors();
+        this.stripes = new ThreadPoolExecutor[count];
+        for (int i = 0; i < count; i++) {
+            String name = "order-stripe-" + i;
+            stripes[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, name);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+
+        Gauge.builder("orders.stripes.queued", stripes,
+                        executors -> Arrays.stream(executors).mapToInt(executor -> executor.getQueue().size()).sum())
+                .description("Order update tasks waiting for their stripe")
+                .register(meterRegistry);
+        log.info("Order updates run on {} stripes", count);
+    }
+
+    public int stripeCount() {
+        return stripes.length;
+    }
+
+    public int stripeOf(String orderId) {
+        return Math.floorMod(Objects.hashCode(orderId), stripes.length);
+    }
+
+    /**
+     * Run a task on the given stripe, after every task submitted to it before
+     */
+    public <T> CompletableFuture<T> submit(int stripe, Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, stripes[stripe]);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ThreadPoolExecutor stripe : stripes) {
+            stripe.shutdown();
+        }
+    }
+}
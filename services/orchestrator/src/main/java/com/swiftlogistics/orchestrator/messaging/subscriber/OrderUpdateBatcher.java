@@ -0,0 +1,311 @@
+package com.swiftlogistics.orchestrator.messaging.subscriber;
+
+import com.rabbitmq.client.Channel;
+import com.swiftlogistics.orchestrator.config.RabbitMQConfig;
+import com.swiftlogistics.orchestrator.config.TieredRetryRecoverer;
+import com.swiftlogistics.orchestrator.service.OrderBatch;
+import com.swiftlogistics.orchestrator.service.OrderUnitOfWork;
+import com.swiftlogistics.orchestrator.service.UnitOfWorkService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.support.RabbitExceptionTranslator;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs a batch of inbound order updates through OrderBatches, one per stripe
+ * of the OrderStripedExecutor, so orders are processed in parallel while the
+ * updates of one order stay on one thread. The listener waits for every
+ * stripe of its batch, so a batch takes as long as its slowest stripe.
+ * Updates for the same order are coalesced: repeats with the same key (e.g.
+ * status) collapse into the latest one, placed where that latest one arrived.
+ * The first remaining update per order is staged in the batch, and any further
+ * ones are handled one by one after the batch commit, in arrival order.
+ * Updates that fail while staging are handled one by one as well, which gives
+ * them the listener's usual error handling.
+ * A message whose single handling fails goes to the retry tiers. Until it is
+ * through, the order's later updates, in this batch or later ones, are held
+ * back behind it (see OrderRetryHolds), so they never apply before it. A
+ * message that cannot be converted, or has no order id or key, is parked.
+ * The listener acks the batch itself. A message whose republish to the retry
+ * tiers fails is requeued on its own, together with the order's later updates
+ * in the batch; the rest of the batch is acked. Updates of that order already
+ * prefetched from the work queue may still get ahead of a requeued one.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderUpdateBatcher {
+
+    private final UnitOfWorkService unitOfWorkService;
+    private final MessageConverter messageConverter;
+    private final TieredRetryRecoverer retryRecoverer;
+    private final OrderStripedExecutor stripedExecutor;
+    private final OrderRetryHolds retryHolds;
+
+    /**
+     * An update together with the message it came in
+     */
+    private record Received<T>(Message message, String orderId, T update) {
+
+        String queue() {
+            return message.getMessageProperties().getConsumerQueue();
+        }
+
+        String messageId() {
+            return message.getMessageProperties().getMessageId();
+        }
+
+        long deliveryTag() {
+            return message.getMessageProperties().getDeliveryTag();
+        }
+    }
+
+    /**
+     * Where the failed update of an order went; no destination if it could not
+     * be republished and was requeued
+     */
+    private record Failure(Exception cause, String destination, boolean parked) {
+
+        boolean requeued() {
+            return destination == null;
+        }
+    }
+
+    private record StripeResult(int applied, int handledSingly) {
+    }
+
+    /**
+     * @param type         payload type the messages are converted to
+     * @param stage        records an update in its order's unit of work and returns
+     *                     what to do once the unit applied, or null
+     * @param handleSingle handles one update outside of the batch
+     */
+    public <T> void process(List<Message> messages,
+                            Channel channel,
+                            Class<T> type,
+                            Function<T, String> orderIdOf,
+                            Function<T, Object> keyOf,
+                            BiFunction<OrderUnitOfWork, T, Runnable> stage,
+                            Consumer<T> handleSingle) {
+        Map<String, Map<Object, Received<T>>> byOrder = new LinkedHashMap<>();
+        // Delivery tags of the messages to requeue instead of ack
+        Set<Long> requeue = ConcurrentHashMap.newKeySet();
+        Set<String> requeuedOrders = new HashSet<>();
+        for (Message message : messages) {
+            T update;
+            String orderId;
+            Object key;
+            try {
+                message.getMessageProperties().setInferredArgumentType(type);
+                update = type.cast(messageConverter.fromMessage(message));
+                // A message without an order id or key, e.g. a null status, will never go through
+                orderId = Objects.requireNonNull(orderIdOf.apply(update), "orderId");
+                key = keyOf.apply(update);
+            } catch (RuntimeException e) {
+                try {
+                    retryRecoverer.park(message, e);
+                } catch (AmqpException parkFailure) {
+                    log.warn("Could not park message, requeueing it", parkFailure);
+                    requeue.add(message.getMessageProperties().getDeliveryTag());
+                }
+                continue;
+            }
+
+            MessageProperties properties = message.getMessageProperties();
+            if (requeuedOrders.contains(orderId)) {
+                requeue.add(properties.getDeliveryTag());
+                continue;
+            }
+            if (properties.getMessageId() == null) {
+                // Identifies the message in OrderRetryHolds if it goes round the retry tiers
+                properties.setMessageId(UUID.randomUUID().toString());
+            }
+            String queue = properties.getConsumerQueue();
+            String heldBackTo = retryHolds.admit(queue, orderId, properties.getMessageId());
+            if (heldBackTo != null) {
+                try {
+                    retryRecoverer.holdBack(message, heldBackTo);
+                    retryHolds.heldBack(queue, orderId, properties.getMessageId(), heldBackTo);
+                } catch (AmqpException e) {
+                    log.warn("Could not hold update back, requeueing it: orderId={}", orderId, e);
+                    requeue.add(properties.getDeliveryTag());
+                    requeuedOrders.add(orderId);
+                }
+                continue;
+            }
+
+            Map<Object, Received<T>> updates = byOrder.computeIfAbsent(orderId, id -> new LinkedHashMap<>());
+            // Re-insert so a repeat moves behind the updates that arrived before it
+            updates.remove(key);
+            updates.put(key, new Received<>(message, orderId, update));
+        }
+
+        // Split the orders over their stripes; each stripe commits its own OrderBatch
+        List<Map<String, Map<Object, Received<T>>>> parts = new ArrayList<>();
+        for (int i = 0; i < stripedExecutor.stripeCount(); i++) {
+            parts.add(new LinkedHashMap<>());
+        }
+        byOrder.forEach((orderId, updates) -> parts.get(stripedExecutor.stripeOf(orderId)).put(orderId, updates));
+
+        List<CompletableFuture<StripeResult>> results = new ArrayList<>();
+        for (int i = 0; i < parts.size(); i++) {
+            Map<String, Map<Object, Received<T>>> part = parts.get(i);
+            if (!part.isEmpty()) {
+                results.add(stripedExecutor.submit(i, () -> processStripe(part, stage, handleSingle, requeue))
+                        .exceptionally(e -> {
+                            log.error("Order stripe failed, requeueing its messages: orders={}", part.size(), e);
+                            part.values().forEach(updates ->
+                                    updates.values().forEach(received -> requeue.add(received.deliveryTag())));
+                            return new StripeResult(0, 0);
+                        }));
+            }
+        }
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).join();
+        settle(messages, channel, requeue);
+
+        int applied = results.stream().mapToInt(result -> result.join().applied()).sum();
+        int deferred = results.stream().mapToInt(result -> result.join().handledSingly()).sum();
+        log.info("Processed update batch: messages={}, orders={}, applied={}, handledSingly={}",
+                messages.size(), byOrder.size(), applied, deferred);
+    }
+
+    /**
+     * Ack the batch, except the messages to requeue
+     */
+    private void settle(List<Message> messages, Channel channel, Set<Long> requeue) {
+        try {
+            if (requeue.isEmpty()) {
+                channel.basicAck(messages.get(messages.size() - 1).getMessageProperties().getDeliveryTag(), true);
+                return;
+            }
+            log.warn("Requeueing messages of the batch: messages={}", requeue.size());
+            for (Message message : messages) {
+                long deliveryTag = message.getMessageProperties().getDeliveryTag();
+                if (requeue.contains(deliveryTag)) {
+                    channel.basicNack(deliveryTag, false, true);
+                } else {
+                    channel.basicAck(deliveryTag, false);
+                }
+            }
+        } catch (IOException e) {
+            throw RabbitExceptionTranslator.convertRabbitAccessException(e);
+        }
+    }
+
+    /**
+     * Stage, commit and follow up the updates of the orders on one stripe. If
+     * the commit itself fails, every message of the stripe goes to the retry tiers.
+     */
+    private <T> StripeResult processStripe(Map<String, Map<Object, Received<T>>> byOrder,
+                                           BiFunction<OrderUnitOfWork, T, Runnable> stage,
+                                           Consumer<T> handleSingle,
+                                           Set<Long> requeue) {
+        Set<String> applied;
+        Map<String, Runnable> afterCommit = new LinkedHashMap<>();
+        List<Received<T>> deferred = new ArrayList<>();
+        try {
+            OrderBatch batch = unitOfWorkService.beginBatch(byOrder.keySet());
+
+            for (Map.Entry<String, Map<Object, Received<T>>> entry : byOrder.entrySet()) {
+                String orderId = entry.getKey();
+                Iterator<Received<T>> pending = entry.getValue().values().iterator();
+                Received<T> first = pending.next();
+                try {
+                    afterCommit.put(orderId, stage.apply(batch.begin(orderId), first.update()));
+                } catch (Exception e) {
+                    log.warn("Could not stage update in batch, handling it on its own: orderId={}", orderId, e);
+                    batch.discard(orderId);
+                    deferred.add(first);
+                }
+                pending.forEachRemaining(deferred::add);
+            }
+
+            applied = batch.commit();
+        } catch (Exception e) {
+            log.error("Order batch failed, retrying its messages: orders={}", byOrder.size(), e);
+            Map<String, Failure> failed = new HashMap<>();
+            byOrder.values().forEach(updates -> updates.values().forEach(received -> retry(received, e, failed, requeue)));
+            return new StripeResult(0, 0);
+        }
+
+        afterCommit.forEach((orderId, callback) -> {
+            if (!applied.contains(orderId)) {
+                log.info("Ignoring update for orderId: {}, already processed", orderId);
+            } else if (callback != null) {
+                try {
+                    callback.run();
+                } catch (Exception e) {
+                    log.error("Failed to run after-commit actions: orderId={}", orderId, e);
+                }
+            }
+        });
+
+        Map<String, Failure> failed = new HashMap<>();
+        for (Received<T> received : deferred) {
+            if (failed.containsKey(received.orderId())) {
+                // Applying it now would put it ahead of the failed update
+                retry(received, null, failed, requeue);
+                continue;
+            }
+            try {
+                handleSingle.accept(received.update());
+            } catch (Exception e) {
+                retry(received, e, failed, requeue);
+            }
+        }
+        return new StripeResult(applied.size(), deferred.size());
+    }
+
+    /**
+     * Send the first failed update of an order to the retry tiers and hold
+     * the order's later ones back behind it. If a republish fails, that update
+     * and the order's later ones are requeued instead.
+     */
+    private <T> void retry(Received<T> received, Exception cause, Map<String, Failure> failed, Set<Long> requeue) {
+        Failure earlier = failed.get(received.orderId());
+        try {
+            if (earlier == null) {
+                String destination = retryRecoverer.retry(received.message(), cause);
+                boolean parked = RabbitMQConfig.parkingQueue(received.queue()).equals(destination);
+                retryHolds.failed(received.queue(), received.orderId(), received.messageId(), destination, parked);
+                failed.put(received.orderId(), new Failure(cause, destination, parked));
+            } else if (earlier.requeued()) {
+                requeue.add(received.deliveryTag());
+            } else if (earlier.parked()) {
+                retryRecoverer.park(received.message(), earlier.cause());
+            } else {
+                retryRecoverer.holdBack(received.message(), earlier.destination());
+                retryHolds.heldBack(received.queue(), received.orderId(), received.messageId(),
+                        earlier.destination());
+            }
+        } catch (AmqpException e) {
+            log.warn("Could not republish update, requeueing it: orderId={}", received.orderId(), e);
+            if (earlier == null) {
+                retryHolds.requeued(received.queue(), received.orderId(), received.messageId());
+            }
+            requeue.add(received.deliveryTag());
+            failed.put(received.orderId(), new Failure(cause, null, false));
+        }
+    }
+}
@@ -1,22 +1,31 @@
 package com.swiftlogistics.orchestrator.messaging.subscriber;
 
 import com.swiftlogistics.orchestrator.config.RabbitMQConfig;
+import com.swiftlogistics.orchestrator.config.RabbitTemplateConfig;
+import com.swiftlogistics.orchestrator.dto.OrderSummary;
 import com.swiftlogistics.orchestrator.dto.RouteUpdateMessage;
+import com.swiftlogistics.orchestrator.messaging.publisher.DriverPushPublisher;
 import com.swiftlogistics.orchestrator.messaging.publisher.SsePublisher;
+import com.swiftlogistics.orchestrator.model.Order;
 import com.swiftlogistics.orchestrator.model.Route;
 import com.swiftlogistics.orchestrator.model.enums.EventSource;
 import com.swiftlogistics.orchestrator.model.enums.EventType;
 import com.swiftlogistics.orchestrator.model.enums.OrderStatus;
-import com.swiftlogistics.orchestrator.service.OrderService;
+import com.swiftlogistics.orchestrator.service.DriverInbox;
+import com.swiftlogistics.orchestrator.service.DriverService;
 import com.swiftlogistics.orchestrator.service.EventService;
+import com.swiftlogistics.orchestrator.service.OrderUnitOfWork;
 import com.swiftlogistics.orchestrator.service.RouteService;
+import com.swiftlogistics.orchestrator.service.UnitOfWorkService;
+import com.rabbitmq.client.Channel;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 /**
  * Route Subscriber - Step 4 of Optimized Event-Driven Flow
  * Handles route planning updates and driver assignment preparation
@@ -26,29 +35,43 @@ import org.springframework.stereotype.Service;
 @Slf4j
 public class RouteSubscriber {
 
-    private final OrderService orderService;
     private final RouteService routeService;
     private final EventService eventService;
     private final SsePublisher ssePublisher;
+    private final UnitOfWorkService unitOfWorkService;
+    private final DriverPushPublisher driverPushPublisher;
+    private final DriverService driverService;
+    private final DriverInbox driverInbox;
+    private final OrderUpdateBatcher orderUpdateBatcher;
+
+    @RabbitListener(queues = RabbitMQConfig.QUEUE_ROUTE_UPDATES,
+            containerFactory = RabbitTemplateConfig.BATCH_LISTENER_FACTORY)
+    public void processRouteUpdates(List<Message> messages, Channel channel) {
+        orderUpdateBatcher.process(messages, channel, RouteUpdateMessage.class, RouteUpdateMessage::getOrderId,
+                routeUpdate -> routeUpdate.getStatus().toUpperCase(),
+                this::stageRouteUpdate, this::processRouteUpdate);
+    }
 
-    @RabbitListener(queues = RabbitMQConfig.QUEUE_ROUTE_UPDATES)
-    @Retryable(
-        value = {Exception.class},
-        maxAttempts = 3,
-        backoff = @Backoff(delay = 2000)
-    )
-    public void processRouteUpdate(RouteUpdateMessage routeUpdate) throws Exception {
+    /**
+     * Handle a single route update in its own unit of work. Failures are
+     * rethrown: the message then waits in a retry queue instead of blocking
+     * the listener thread
+     */
+    public void processRouteUpdate(RouteUpdateMessage routeUpdate) {
         try {
             log.info("Received route update: orderId={}, status={}",
                     routeUpdate.getOrderId(), routeUpdate.getStatus());
 
-            // Process based on route status
-            switch (routeUpdate.getStatus().toUpperCase()) {
-                case "ROUTED" -> handleRouted(routeUpdate);
-                case "FAILED" -> handleRouteFailure(routeUpdate);
-                case "ROUTING" -> handleRouting(routeUpdate);
-                default -> log.warn("Unknown route status: {} for order: {}",
-                            routeUpdate.getStatus(), routeUpdate.getOrderId());
+            OrderUnitOfWork work = unitOfWorkService.begin(routeUpdate.getOrderId());
+            Runnable afterCommit = stageRouteUpdate(work, routeUpdate);
+
+            if (!work.commit()) {
+                log.info("Ignoring route update for order: {}, status: {}, already processed",
+                        routeUpdate.getOrderId(), routeUpdate.getStatus());
+                return;
+            }
+            if (afterCommit != null) {
+                afterCommit.run();
             }
 
             log.info("Route update processed successfully for order: {}", routeUpdate.getOrderId());
@@ -62,77 +85,89 @@ public class RouteSubscriber {
                     EventSource.ROS_ADAPTER,
                 "Failed to process route update: " + e.getMessage()
             );
+            throw e;
         }
     }
 
-    private void handleRouted(RouteUpdateMessage routeUpdate) {
-        // Update order status to ROUTED
-        orderService.updateOrderStatus(routeUpdate.getOrderId(), OrderStatus.ROUTED);
+    /**
+     * Record a route update in the unit of work; returns what to do once it applied
+     */
+    private Runnable stageRouteUpdate(OrderUnitOfWork work, RouteUpdateMessage routeUpdate) {
+        // Process based on route status
+        return switch (routeUpdate.getStatus().toUpperCase()) {
+            case "ROUTED" -> stageRouted(work, routeUpdate);
+            case "FAILED" -> stageRouteFailure(work, routeUpdate);
+            case "ROUTING" -> stageRouting(work, routeUpdate);
+            default -> {
+                log.warn("Unknown route status: {} for order: {}",
+                        routeUpdate.getStatus(), routeUpdate.getOrderId());
+                yield null;
+            }
+        };
+    }
 
-        // Create route in the system
+    private Runnable stageRouted(OrderUnitOfWork work, RouteUpdateMessage routeUpdate) {
+        // Create route in the system and move the order to ROUTED
         Route route = routeService.createOrderRoute(
-                routeUpdate.getOrderId(),
+                work,
                 routeUpdate.getWaypoints(),
                 routeUpdate.getDriverId(),
                 routeUpdate.getVehicleId()
         );
 
-        // Log success event
-        eventService.logSuccessEvent(
-                routeUpdate.getOrderId(),
-                EventType.ROUTE_CREATED,
-                EventSource.ROS_ADAPTER,
-                "Route created with driverId: " + routeUpdate.getDriverId()
-        );
+        return () -> {
+            // Push the assignment to the driver app; the order is read after commit so it carries the new route
+            Order order = work.order();
 
-        // Notify clients via SSE
-        ssePublisher.publishOrderStatusUpdate(
-                routeUpdate.getOrderId(), OrderStatus.ROUTED, "Route created successfully"
-        );
+            // Notify clients via SSE
+            ssePublisher.publishOrderStatusUpdate(routeUpdate.getOrderId(), order.getCustomerId(),
+                    OrderStatus.ROUTED, "Route created successfully");
 
-//        ssePublisher.publishDriverUpdate(route.getRouteId());
+            driverInbox.assign(OrderSummary.from(order));
+            driverPushPublisher.publishDriverUpdate(driverService.toDriverUpdate(order, route));
 
-        log.info("Order routed successfully: orderId={}, driverId={}",
-                routeUpdate.getOrderId(), routeUpdate.getDriverId());
+            log.info("Order routed successfully: orderId={}, driverId={}",
+                    routeUpdate.getOrderId(), routeUpdate.getDriverId());
+        };
     }
 
-    private void handleRouteFailure(RouteUpdateMessage routeUpdate) {
+    private Runnable stageRouteFailure(OrderUnitOfWork work, RouteUpdateMessage routeUpdate) {
         // Update order status to ROUTE_FAILED
-        orderService.updateOrderStatus(routeUpdate.getOrderId(), OrderStatus.ROUTE_FAILED);
+        work.transition(OrderStatus.ROUTE_FAILED);
 
         // Log failure event
-        eventService.logFailedEvent(
-                routeUpdate.getOrderId(),
+        work.logFailedEvent(
                 EventType.ROUTE_FAILED,
                 EventSource.ROS_ADAPTER,
                 "Route planning failed"
         );
 
-        // Notify clients via SSE
-        ssePublisher.publishOrderStatusUpdate(
-                routeUpdate.getOrderId(), OrderStatus.ROUTE_FAILED, "Route planning failed"
-        );
+        return () -> {
+            // Notify clients via SSE
+            ssePublisher.publishOrderStatusUpdate(routeUpdate.getOrderId(), work.order().getCustomerId(),
+                    OrderStatus.ROUTE_FAILED, "Route planning failed");
 
-        log.error("Route planning failed for order: {}", routeUpdate.getOrderId());
+            log.error("Route planning failed for order: {}", routeUpdate.getOrderId());
+        };
     }
 
-    private void handleRouting(RouteUpdateMessage routeUpdate) {
+    private Runnable stageRouting(OrderUnitOfWork work, RouteUpdateMessage routeUpdate) {
         // Update order status to ROUTING (optional, depending on business logic)
-        orderService.updateOrderStatus(routeUpdate.getOrderId(), OrderStatus.ROUTING);
+        work.transition(OrderStatus.ROUTING);
 
         // Log pending event but don't change order status yet
-        eventService.logPendingEvent(
-                routeUpdate.getOrderId(),
+        work.logPendingEvent(
                 EventType.ROUTE_PENDING,
                 EventSource.ROS_ADAPTER,
                 "Route planning is in progress"
         );
 
-        // Notify clients via SSE
-        ssePublisher.publishOrderStatusUpdate(
-                routeUpdate.getOrderId(), OrderStatus.ROUTING, "Route planning is in progress"
-        );
+        return () -> {
+            // Notify clients via SSE
+            ssePublisher.publishOrderStatusUpdate(routeUpdate.getOrderId(), work.order().getCustomerId(),
+                    OrderStatus.ROUTING, "Route planning is in progress");
 
-        log.info("Route planning in progress for order: {}", routeUpdate.getOrderId());
+            log.info("Route planning in progress for order: {}", routeUpdate.getOrderId());
+        };
     }
 }
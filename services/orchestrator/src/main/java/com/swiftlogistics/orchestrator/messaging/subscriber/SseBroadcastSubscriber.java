@@ -0,0 +1,40 @@
+package com.swiftlogistics.orchestrator.messaging.subscriber;
+
+import com.swiftlogistics.orchestrator.cache.OrderVersionCache;
+import com.swiftlogistics.orchestrator.dto.SseBroadcastMessage;
+import com.swiftlogistics.orchestrator.messaging.publisher.SsePublisher;
+import com.swiftlogistics.orchestrator.service.DriverInbox;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SseBroadcastSubscriber {
+
+    private final SsePublisher ssePublisher;
+    private final DriverInbox driverInbox;
+    private final OrderVersionCache orderVersionCache;
+
+    /**
+     * Receive status updates published by any orchestrator node, including this one,
+     * and deliver them to the SSE clients connected here; status changes also
+     * keep this node's driver inbox current
+     */
+    @RabbitListener(queues = "#{sseBroadcastQueue.name}")
+    public void handleBroadcast(SseBroadcastMessage message) {
+        try {
+            // The order changed, possibly on another node
+            orderVersionCache.invalidate(message.getOrderId());
+            ssePublisher.deliverLocally(message);
+            if (message.getStatus() != null) {
+                driverInbox.onStatusChange(message.getOrderId(), message.getStatus());
+            }
+        } catch (Exception e) {
+            log.error("Error delivering SSE broadcast: orderId={}, eventId={}",
+                    message.getOrderId(), message.getEventId(), e);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.swiftlogistics.orchestrator.messaging.subscriber;
 
 import com.swiftlogistics.orchestrator.config.RabbitMQConfig;
+import com.swiftlogistics.orchestrator.config.RabbitTemplateConfig;
 import com.swiftlogistics.orchestrator.dto.WarehouseUpdateMessage;
 import com.swiftlogistics.orchestrator.messaging.publisher.SsePublisher;
 import com.swiftlogistics.orchestrator.model.enums.EventSource;
@@ -8,11 +9,17 @@ import com.swiftlogistics.orchestrator.model.enums.EventType;
 import com.swiftlogistics.orchestrator.model.enums.OrderStatus;
 import com.swiftlogistics.orchestrator.service.OrderService;
 import com.swiftlogistics.orchestrator.service.EventService;
+import com.swiftlogistics.orchestrator.service.OrderUnitOfWork;
+import com.swiftlogistics.orchestrator.service.UnitOfWorkService;
+import com.rabbitmq.client.Channel;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 /**
  * Step 3: Warehouse Update Subscriber
  * Handles updates from WMS Adapter when packages are ready
@@ -25,8 +32,21 @@ public class WarehouseSubscriber {
     private final OrderService orderService;
     private final EventService eventService;
     private final SsePublisher ssePublisher;
+    private final UnitOfWorkService unitOfWorkService;
+    private final OrderUpdateBatcher orderUpdateBatcher;
+
+    @RabbitListener(queues = RabbitMQConfig.QUEUE_WAREHOUSE_UPDATES,
+            containerFactory = RabbitTemplateConfig.BATCH_LISTENER_FACTORY)
+    public void handleWarehouseUpdates(List<Message> messages, Channel channel) {
+        orderUpdateBatcher.process(messages, channel, WarehouseUpdateMessage.class,
+                WarehouseUpdateMessage::getOrderId, WarehouseUpdateMessage::getStatus,
+                this::stagePackageReady, this::handleWarehouseUpdate);
+    }
 
-    @RabbitListener(queues = RabbitMQConfig.QUEUE_WAREHOUSE_UPDATES)
+    /**
+     * Handle a single warehouse update in its own unit of work; failures are
+     * rethrown so the message is retried later
+     */
     public void handleWarehouseUpdate(WarehouseUpdateMessage warehouseUpdate) {
         try {
             log.info("Received warehouse update: orderId={}, status={}",
@@ -63,31 +83,50 @@ public class WarehouseSubscriber {
             eventService.logFailedEvent(warehouseUpdate.getOrderId(),
                     EventType.WAREHOUSE_FAILED, EventSource.WMS_ADAPTER,
                     "Failed to process warehouse update: " + e.getMessage());
+            throw e;
         }
     }
 
     private void handlePackageReady(WarehouseUpdateMessage warehouseUpdate) {
+        OrderUnitOfWork work = unitOfWorkService.begin(warehouseUpdate.getOrderId());
+        Runnable afterCommit = stagePackageReady(work, warehouseUpdate);
+
+        if (!work.commit()) {
+            log.info("Ignoring package ready for orderId: {}, already processed", warehouseUpdate.getOrderId());
+            return;
+        }
+        afterCommit.run();
+    }
+
+    /**
+     * Record a ready package in the unit of work; returns the notification to send once it applied
+     */
+    private Runnable stagePackageReady(OrderUnitOfWork work, WarehouseUpdateMessage warehouseUpdate) {
         // Update order status to READY
-        orderService.updateOrderStatus(warehouseUpdate.getOrderId(), OrderStatus.READY);
-        
+        work.transition(OrderStatus.READY);
+
         // Log package ready event
-        eventService.logSuccessEvent(warehouseUpdate.getOrderId(), EventType.PACKAGE_READY,
+        work.logSuccessEvent(EventType.PACKAGE_READY,
                 EventSource.WMS_ADAPTER, "Package is ready for shipment");
 
-        // Notify clients via SSE
-        ssePublisher.publishOrderStatusUpdate(
-                warehouseUpdate.getOrderId(), OrderStatus.READY, "Package is ready for shipment"
-        );
-
         // Trigger route planning
-        orderService.requestRoutePlanning(warehouseUpdate.getOrderId());
-        
-        log.info("Package ready for orderId: {}, triggering route planning", warehouseUpdate.getOrderId());
+        orderService.requestRoutePlanning(work);
+
+        return () -> {
+            // Notify clients via SSE
+            ssePublisher.publishOrderStatusUpdate(warehouseUpdate.getOrderId(), work.order().getCustomerId(),
+                    OrderStatus.READY, "Package is ready for shipment");
+
+            log.info("Package ready for orderId: {}, triggering route planning", warehouseUpdate.getOrderId());
+        };
     }
 
     private void handleWarehouseFailure(WarehouseUpdateMessage warehouseUpdate) {
         // Update order status to WAREHOUSE_FAILED
-        orderService.updateOrderStatus(warehouseUpdate.getOrderId(), OrderStatus.WAREHOUSE_FAILED);
+        if (!orderService.updateOrderStatus(warehouseUpdate.getOrderId(), OrderStatus.WAREHOUSE_FAILED)) {
+            log.info("Ignoring warehouse failure for orderId: {}, already processed", warehouseUpdate.getOrderId());
+            return;
+        }
 
         // Log warehouse failure event
         eventService.logFailedEvent(warehouseUpdate.getOrderId(),
@@ -105,7 +144,10 @@ public class WarehouseSubscriber {
 
     private void handleWarehouseProcessing(WarehouseUpdateMessage warehouseUpdate) {
         // Update order status to PROCESSING (optional, depending on business logic)
-         orderService.updateOrderStatus(warehouseUpdate.getOrderId(), OrderStatus.PROCESSING);
+        if (!orderService.updateOrderStatus(warehouseUpdate.getOrderId(), OrderStatus.PROCESSING)) {
+            log.info("Ignoring warehouse processing for orderId: {}, already processed", warehouseUpdate.getOrderId());
+            return;
+        }
 
         // Log processing status but don't change order status yet
         eventService.logPendingEvent(
@@ -1,5 +1,6 @@
 package com.swiftlogistics.orchestrator.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.swiftlogistics.orchestrator.model.enums.OrderStatus;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -8,16 +9,24 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.index.Indexed;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "orders")
+// Order search sorts newest first on (createdAt, _id); each index serves one leading filter
+@CompoundIndex(name = "customer_created", def = "{'customerId': 1, 'createdAt': -1, '_id': -1}")
+@CompoundIndex(name = "driver_status_created", def = "{'driverId': 1, 'status': 1, 'createdAt': -1, '_id': -1}")
+@CompoundIndex(name = "status_created", def = "{'status': 1, 'createdAt': -1, '_id': -1}")
+@CompoundIndex(name = "city_created", def = "{'city': 1, 'createdAt': -1, '_id': -1}")
+@CompoundIndex(name = "created", def = "{'createdAt': -1, '_id': -1}")
 public class Order {
     
     @Id
@@ -56,4 +65,20 @@ public class Order {
     // Billing Information
     private Double totalAmount;
     private String billingStatus;
+
+    // Incremented on every status transition
+    private Long version;
+
+    // Messages waiting to be published by the outbox relay
+    @JsonIgnore
+    private List<OutboxMessage> outbox;
+
+    // Set while the outbox holds messages: the time the oldest of them became due
+    @JsonIgnore
+    @Indexed(sparse = true)
+    private LocalDateTime outboxDueAt;
+
+    // Set while a relay node publishes the outbox; other nodes skip the order until it passes
+    @JsonIgnore
+    private LocalDateTime outboxLeasedUntil;
 }
\ No newline at end of file
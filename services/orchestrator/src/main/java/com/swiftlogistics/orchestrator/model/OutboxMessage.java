@@ -0,0 +1,30 @@
+package com.swiftlogistics.orchestrator.model;
+
+import com.swiftlogistics.orchestrator.model.enums.EventType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outgoing message stored on its order until the outbox relay has
+ * published it and the broker has confirmed it
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxMessage {
+    private String messageId;
+    private String exchange;
+    private String routingKey;
+    private Object payload;
+
+    // Audit event logged once the broker confirms the message
+    private EventType eventType;
+    private String description;
+
+    private LocalDateTime createdAt;
+}
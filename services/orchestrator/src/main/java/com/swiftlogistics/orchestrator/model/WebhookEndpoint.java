@@ -0,0 +1,34 @@
+package com.swiftlogistics.orchestrator.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "webhook_endpoints")
+public class WebhookEndpoint {
+
+    @Id
+    private String endpointId;
+
+    @Indexed
+    private String customerId;
+
+    private String url;
+
+    // HMAC key for the X-Swift-Signature header, only returned when the endpoint is registered
+    @JsonIgnore
+    private String secret;
+
+    private LocalDateTime createdAt;
+}
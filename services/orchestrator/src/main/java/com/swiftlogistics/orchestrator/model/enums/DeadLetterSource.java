@@ -0,0 +1,10 @@
+package com.swiftlogistics.orchestrator.model.enums;
+
+/**
+ * Where a stage's failed messages end up: DLQ for messages the broker
+ * dead-lettered, PARKING for messages that used up their retry tiers
+ */
+public enum DeadLetterSource {
+    DLQ,
+    PARKING
+}
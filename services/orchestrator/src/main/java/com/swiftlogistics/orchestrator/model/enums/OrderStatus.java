@@ -1,5 +1,10 @@
 package com.swiftlogistics.orchestrator.model.enums;
 
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 public enum OrderStatus {
     NEW,           // Order created
     BILLED,        // CMS billing completed
@@ -15,5 +20,36 @@ public enum OrderStatus {
     IN_TRANSIT,    // Package in transit
     DELIVERED,     // Delivery completed
     CANCELLED,     // Order cancelled
-    FAILED         // Order failed
+    FAILED;        // Order failed
+
+    // Allowed source states for each target state
+    private static final Map<OrderStatus, Set<OrderStatus>> PREDECESSORS = new EnumMap<>(OrderStatus.class);
+
+    static {
+        PREDECESSORS.put(BILLING_PENDING, EnumSet.of(NEW));
+        PREDECESSORS.put(BILLED, EnumSet.of(NEW, BILLING_PENDING, BILLING_FAILED));
+        PREDECESSORS.put(BILLING_FAILED, EnumSet.of(NEW, BILLING_PENDING));
+        PREDECESSORS.put(PROCESSING, EnumSet.of(BILLED));
+        PREDECESSORS.put(READY, EnumSet.of(BILLED, PROCESSING, WAREHOUSE_FAILED));
+        PREDECESSORS.put(WAREHOUSE_FAILED, EnumSet.of(BILLED, PROCESSING));
+        PREDECESSORS.put(ROUTING, EnumSet.of(READY, ROUTE_FAILED));
+        PREDECESSORS.put(ROUTED, EnumSet.of(READY, ROUTING, ROUTE_FAILED));
+        PREDECESSORS.put(ROUTE_FAILED, EnumSet.of(READY, ROUTING));
+        PREDECESSORS.put(ASSIGNED, EnumSet.of(ROUTED));
+        PREDECESSORS.put(IN_TRANSIT, EnumSet.of(ROUTED, ASSIGNED));
+        PREDECESSORS.put(DELIVERED, EnumSet.of(IN_TRANSIT));
+        PREDECESSORS.put(CANCELLED, EnumSet.complementOf(EnumSet.of(IN_TRANSIT, DELIVERED, CANCELLED, FAILED)));
+        PREDECESSORS.put(FAILED, EnumSet.complementOf(EnumSet.of(DELIVERED, CANCELLED, FAILED)));
+    }
+
+    /**
+     * States an order may be in for a transition to this state to apply
+     */
+    public Set<OrderStatus> allowedPredecessors() {
+        return PREDECESSORS.getOrDefault(this, EnumSet.noneOf(OrderStatus.class));
+    }
+
+    public boolean canTransitionFrom(OrderStatus from) {
+        return allowedPredecessors().contains(from);
+    }
 }
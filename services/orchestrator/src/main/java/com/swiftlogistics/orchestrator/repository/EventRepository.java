@@ -13,6 +13,8 @@ public interface EventRepository extends MongoRepository<Event, String> {
     
     // Find events by order ID
     List<Event> findByOrderIdOrderByTimestampDesc(String orderId);
+
+    long countByOrderId(String orderId);
     
     // Find failed events for monitoring
     @Query("{ 'status': 'FAILED' }")
@@ -0,0 +1,13 @@
+package com.swiftlogistics.orchestrator.repository;
+
+import com.swiftlogistics.orchestrator.model.WebhookEndpoint;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+public interface WebhookEndpointRepository extends MongoRepository<WebhookEndpoint, String> {
+
+    List<WebhookEndpoint> findByCustomerId(String customerId);
+
+    long deleteByEndpointIdAndCustomerId(String endpointId, String customerId);
+}
@@ -0,0 +1,511 @@
+package com.swiftlogistics.orchestrator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.GetResponse;
+import com.swiftlogistics.orchestrator.config.CborMessageConverter;
+import com.swiftlogistics.orchestrator.config.RabbitMQConfig;
+import com.swiftlogistics.orchestrator.dto.DeadLetterMessage;
+import com.swiftlogistics.orchestrator.dto.DeadLetterQueueInfo;
+import com.swiftlogistics.orchestrator.dto.RedriveJob;
+import com.swiftlogistics.orchestrator.dto.RedriveRequest;
+import com.swiftlogistics.orchestrator.model.enums.DeadLetterSource;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+import org.springframework.amqp.support.postprocessor.DelegatingDecompressingPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Inspects and redrives the dead-letter and parking queues of each stage.
+ * Messages are read with basic.get. A peek holds them unacked and requeues
+ * them at the end, so they keep their order. A redrive moves the messages it
+ * skips to the back of the queue in chunks of skip-chunk, so it never holds
+ * more than that unacked, and reads no more than the messages the queue had
+ * when it started. A message is acked only after the broker confirmed its
+ * republish. Redrives run in the background at a fixed rate, one at a time
+ * per stage, so draining a large DLQ cannot flood CMS, WMS or ROS.
+ */
+@Service
+@Slf4j
+public class DeadLetterService {
+
+    private static final String REDRIVE_COUNT_HEADER = "x-redrive-count";
+    private static final int MAX_JOBS = 100;
+
+    /**
+     * Redrive progress, updated by the redrive thread
+     */
+    private static class Job {
+        final String jobId = UUID.randomUUID().toString();
+        final String stage;
+        final DeadLetterSource source;
+        final int ratePerSecond;
+        final LocalDateTime startedAt = LocalDateTime.now();
+        final AtomicInteger scanned = new AtomicInteger();
+        final AtomicInteger redriven = new AtomicInteger();
+        final AtomicInteger skipped = new AtomicInteger();
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        volatile String status = "RUNNING";
+        volatile String error;
+        volatile LocalDateTime finishedAt;
+
+        Job(String stage, DeadLetterSource source, int ratePerSecond) {
+            this.stage = stage;
+            this.source = source;
+            this.ratePerSecond = ratePerSecond;
+        }
+
+        RedriveJob snapshot() {
+            return RedriveJob.builder()
+                    .jobId(jobId)
+                    .stage(stage)
+                    .source(source)
+                    .status(status)
+                    .ratePerSecond(ratePerSecond)
+                    .scanned(scanned.get())
+                    .redriven(redriven.get())
+                    .skipped(skipped.get())
+                    .error(error)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .build();
+        }
+    }
+
+    private final RabbitTemplate rabbitTemplate;
+    private final AmqpAdmin amqpAdmin;
+    private final ObjectMapper objectMapper;
+    private final CBORMapper cborMapper = new CBORMapper();
+    private final MessagePropertiesConverter propertiesConverter = new DefaultMessagePropertiesConverter();
+    private final DelegatingDecompressingPostProcessor decompressor = new DelegatingDecompressingPostProcessor();
+    private final ExecutorService redriveExecutor;
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+    // Stages with a redrive running; their DLQ and parking queue feed the same work queue
+    private final Set<String> busyStages = ConcurrentHashMap.newKeySet();
+    private final int defaultRate;
+    private final int maxRate;
+    private final int maxScan;
+    private final int peekMax;
+    private final int skipChunk;
+    private final long confirmTimeoutMs;
+
+    public DeadLetterService(RabbitTemplate rabbitTemplate,
+                             AmqpAdmin amqpAdmin,
+                             ObjectMapper objectMapper,
+                             @Value("${orchestrator.dead-letters.rate-per-second:10}") int defaultRate,
+                             @Value("${orchestrator.dead-letters.max-rate-per-second:100}") int maxRate,
+                             @Value("${orchestrator.dead-letters.max-scan:10000}") int maxScan,
+                             @Value("${orchestrator.dead-letters.peek-max:100}") int peekMax,
+                             @Value("${orchestrator.dead-letters.skip-chunk:100}") int skipChunk,
+                             @Value("${orchestrator.dead-letters.confirm-timeout-ms:5000}") long confirmTimeoutMs) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.amqpAdmin = amqpAdmin;
+        this.objectMapper = objectMapper;
+        this.defaultRate = defaultRate;
+        this.maxRate = maxRate;
+        this.maxScan = maxScan;
+        this.peekMax = peekMax;
+        this.skipChunk = Math.max(skipChunk, 1);
+        this.confirmTimeoutMs = confirmTimeoutMs;
+        this.redriveExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "dlq-redrive");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Depth of every stage's DLQ and parking queue that exists on the broker
+     */
+    public List<DeadLetterQueueInfo> getQueues() {
+        List<DeadLetterQueueInfo> queues = new ArrayList<>();
+        for (String stage : RabbitMQConfig.STAGE_EXCHANGES.keySet()) {
+            for (DeadLetterSource source : DeadLetterSource.values()) {
+                if (!hasQueue(stage, source)) {
+                    continue;
+                }
+                String queue = queueName(stage, source);
+                QueueInformation info = amqpAdmin.getQueueInfo(queue);
+                if (info != null) {
+                    queues.add(DeadLetterQueueInfo.builder()
+                            .stage(stage)
+                            .source(source)
+                            .queue(queue)
+                            .messageCount(info.getMessageCount())
+                            .consumerCount(info.getConsumerCount())
+                            .build());
+                }
+            }
+        }
+        return queues;
+    }
+
+    /**
+     * Look at the first messages of a stage's DLQ or parking queue without removing them
+     */
+    public List<DeadLetterMessage> peek(String stage, DeadLetterSource source, int limit) {
+        String queue = queueName(requireQueue(stage, source), source);
+        List<DeadLetterMessage> messages = new ArrayList<>();
+        scan(queue, Math.min(Math.max(limit, 1), peekMax), () -> false, message -> {
+            messages.add(describe(message));
+            return false;
+        });
+        return messages;
+    }
+
+    /**
+     * Start moving matching messages back to the stage's work queue
+     */
+    public RedriveJob redrive(String stage, RedriveRequest request) {
+        DeadLetterSource source = request.getSource() != null ? request.getSource() : DeadLetterSource.DLQ;
+        String queue = queueName(requireQueue(stage, source), source);
+        int rate = Math.min(Math.max(request.getRatePerSecond() != null ? request.getRatePerSecond() : defaultRate, 1), maxRate);
+        int limit = request.getLimit() != null && request.getLimit() > 0 ? request.getLimit() : Integer.MAX_VALUE;
+
+        if (!busyStages.add(stage)) {
+            throw new IllegalStateException("A redrive is already running for " + stage);
+        }
+        Job job = new Job(stage, source, rate);
+        synchronized (jobs) {
+            jobs.put(job.jobId, job);
+            Iterator<Job> oldest = jobs.values().iterator();
+            while (jobs.size() > MAX_JOBS && oldest.hasNext()) {
+                if (oldest.next().finishedAt != null) {
+                    oldest.remove();
+                }
+            }
+        }
+
+        log.info("Redrive started: jobId={}, queue={}, limit={}, rate={}/s, orderId={}, reasonContains={}",
+                job.jobId, queue, request.getLimit(), rate, request.getOrderId(), request.getReasonContains());
+        try {
+            redriveExecutor.execute(() -> run(job, queue, request, limit));
+        } catch (RuntimeException e) {
+            busyStages.remove(stage);
+            throw e;
+        }
+        return job.snapshot();
+    }
+
+    public List<RedriveJob> getJobs() {
+        synchronized (jobs) {
+            return jobs.values().stream().map(Job::snapshot).toList();
+        }
+    }
+
+    public Optional<RedriveJob> getJob(String jobId) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(jobId)).map(Job::snapshot);
+        }
+    }
+
+    /**
+     * Stop a running redrive; messages already redriven stay redriven
+     */
+    public boolean cancel(String jobId) {
+        Job job;
+        synchronized (jobs) {
+            job = jobs.get(jobId);
+        }
+        if (job == null) {
+            return false;
+        }
+        job.cancelled.set(true);
+        return true;
+    }
+
+    private void run(Job job, String queue, RedriveRequest request, int limit) {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / job.ratePerSecond;
+        long[] nextSend = {System.nanoTime()};
+        try {
+            rabbitTemplate.execute(channel -> {
+                // Skipped messages go to the back, so stop before reading them again
+                int depth = Math.min(channel.queueDeclarePassive(queue).getMessageCount(), maxScan);
+                List<Message> skipped = new ArrayList<>();
+                boolean unacked = false;
+                try {
+                    for (int i = 0; i < depth && !job.cancelled.get() && job.redriven.get() < limit; i++) {
+                        GetResponse response = channel.basicGet(queue, false);
+                        if (response == null) {
+                            break;
+                        }
+                        unacked = true;
+                        Message message = toMessage(response);
+                        job.scanned.incrementAndGet();
+                        if (!matches(message, request)) {
+                            job.skipped.incrementAndGet();
+                            skipped.add(message);
+                            if (skipped.size() >= skipChunk) {
+                                moveToBack(channel, queue, skipped);
+                            }
+                            continue;
+                        }
+
+                        long wait = nextSend[0] - System.nanoTime();
+                        if (wait > 0) {
+                            LockSupport.parkNanos(wait);
+                        }
+                        nextSend[0] = Math.max(nextSend[0], System.nanoTime()) + intervalNanos;
+
+                        republish(job.stage, message);
+                        channel.basicAck(response.getEnvelope().getDeliveryTag(), false);
+                        job.redriven.incrementAndGet();
+                    }
+                    moveToBack(channel, queue, skipped);
+                } finally {
+                    if (unacked && channel.isOpen()) {
+                        // Delivery tag 0 with multiple set requeues everything still unacked
+                        channel.basicNack(0, true, true);
+                    }
+                }
+                return null;
+            });
+            job.status = job.cancelled.get() ? "CANCELLED" : "COMPLETED";
+        } catch (Exception e) {
+            job.status = "FAILED";
+            job.error = e.getMessage();
+            log.error("Redrive failed: jobId={}, queue={}", job.jobId, queue, e);
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            busyStages.remove(job.stage);
+            log.info("Redrive finished: jobId={}, queue={}, status={}, scanned={}, redriven={}, skipped={}",
+                    job.jobId, queue, job.status, job.scanned.get(), job.redriven.get(), job.skipped.get());
+        }
+    }
+
+    /**
+     * Read up to maxMessages messages from a queue on one channel. A message
+     * the consumer accepts is acked; all others are requeued together at the
+     * end, as is the current message if the consumer throws.
+     */
+    private void scan(String queue, int maxMessages, BooleanSupplier stop, Predicate<Message> consumer) {
+        rabbitTemplate.execute(channel -> {
+            int outstanding = 0;
+            try {
+                for (int i = 0; i < maxMessages && !stop.getAsBoolean(); i++) {
+                    GetResponse response = channel.basicGet(queue, false);
+                    if (response == null) {
+                        break;
+                    }
+                    outstanding++;
+                    if (consumer.test(toMessage(response))) {
+                        channel.basicAck(response.getEnvelope().getDeliveryTag(), false);
+                        outstanding--;
+                    }
+                }
+            } finally {
+                if (outstanding > 0 && channel.isOpen()) {
+                    // Delivery tag 0 with multiple set requeues everything still unacked
+                    channel.basicNack(0, true, true);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Publish skipped messages again at the back of their queue, then ack the
+     * originals; every message read before them is already acked
+     */
+    private void moveToBack(Channel channel, String queue, List<Message> skipped) throws IOException {
+        if (skipped.isEmpty()) {
+            return;
+        }
+        sendConfirmed(queue, skipped);
+        channel.basicAck(skipped.get(skipped.size() - 1).getMessageProperties().getDeliveryTag(), true);
+        skipped.clear();
+    }
+
+    /**
+     * Publish a message to its work queue with fresh retries and wait for the confirm
+     */
+    private void republish(String stage, Message message) {
+        MessageProperties properties = message.getMessageProperties();
+        Object redrives = properties.getHeaders().get(REDRIVE_COUNT_HEADER);
+        properties.setHeader(REDRIVE_COUNT_HEADER, (redrives instanceof Number number ? number.intValue() : 0) + 1);
+        properties.getHeaders().remove(RabbitMQConfig.RETRY_COUNT_HEADER);
+        properties.getHeaders().remove(RabbitMQConfig.LAST_ERROR_HEADER);
+        sendConfirmed(stage, List.of(message));
+    }
+
+    /**
+     * Publish messages to a queue and wait until the broker confirmed all of them
+     */
+    private void sendConfirmed(String queue, List<Message> messages) {
+        List<CorrelationData> correlations = new ArrayList<>();
+        for (Message message : messages) {
+            MessageProperties properties = message.getMessageProperties();
+            if (properties.getDeliveryMode() == null) {
+                properties.setDeliveryMode(properties.getReceivedDeliveryMode() != null
+                        ? properties.getReceivedDeliveryMode() : MessageDeliveryMode.PERSISTENT);
+            }
+            CorrelationData correlation = new CorrelationData(UUID.randomUUID().toString());
+            rabbitTemplate.send("", queue, message, correlation);
+            correlations.add(correlation);
+        }
+
+        for (int i = 0; i < messages.size(); i++) {
+            CorrelationData correlation = correlations.get(i);
+            String messageId = messages.get(i).getMessageProperties().getMessageId();
+            try {
+                CorrelationData.Confirm confirm = correlation.getFuture().get(confirmTimeoutMs, TimeUnit.MILLISECONDS);
+                if (!confirm.isAck() || correlation.getReturned() != null) {
+                    throw new AmqpException("Message was not accepted by " + queue + ": messageId=" + messageId);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AmqpException("Interrupted while waiting for a confirm from " + queue, e);
+            } catch (ExecutionException | TimeoutException e) {
+                throw new AmqpException("No confirm for message sent to " + queue + ": messageId=" + messageId, e);
+            }
+        }
+    }
+
+    private Message toMessage(GetResponse response) {
+        MessageProperties properties = propertiesConverter.toMessageProperties(
+                response.getProps(), response.getEnvelope(), "UTF-8");
+        return new Message(response.getBody(), properties);
+    }
+
+    private boolean matches(Message message, RedriveRequest request) {
+        if (request.getOrderId() != null && !request.getOrderId().equals(orderIdOf(decode(message)))) {
+            return false;
+        }
+        if (request.getReasonContains() != null) {
+            String reason = reasonOf(message.getMessageProperties());
+            return reason != null && reason.toLowerCase(Locale.ROOT)
+                    .contains(request.getReasonContains().toLowerCase(Locale.ROOT));
+        }
+        return true;
+    }
+
+    private DeadLetterMessage describe(Message message) {
+        MessageProperties properties = message.getMessageProperties();
+        JsonNode body = decode(message);
+        Object retries = properties.getHeaders().get(RabbitMQConfig.RETRY_COUNT_HEADER);
+        Object typeId = properties.getHeaders().get("__TypeId__");
+        return DeadLetterMessage.builder()
+                .messageId(properties.getMessageId())
+                .orderId(orderIdOf(body))
+                .type(typeId != null ? typeId.toString() : null)
+                .contentType(properties.getContentType())
+                .reason(reasonOf(properties))
+                .deathCount(deathCountOf(properties))
+                .retryCount(retries instanceof Number number ? number.intValue() : 0)
+                .body(body != null ? body.toString() : null)
+                .build();
+    }
+
+    /**
+     * Body as a JSON tree, whether it was sent as JSON or CBOR and compressed or not
+     */
+    private JsonNode decode(Message message) {
+        try {
+            MessageProperties encoding = new MessageProperties();
+            encoding.setContentEncoding(message.getMessageProperties().getContentEncoding());
+            byte[] body = decompressor.postProcessMessage(new Message(message.getBody(), encoding)).getBody();
+            return CborMessageConverter.CONTENT_TYPE.equals(message.getMessageProperties().getContentType())
+                    ? cborMapper.readTree(body)
+                    : objectMapper.readTree(body);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static String orderIdOf(JsonNode body) {
+        return body != null && body.hasNonNull("orderId") ? body.get("orderId").asText() : null;
+    }
+
+    /**
+     * Last listener error if the message went through the retry tiers, else why the broker dead-lettered it
+     */
+    private static String reasonOf(MessageProperties properties) {
+        Object lastError = properties.getHeaders().get(RabbitMQConfig.LAST_ERROR_HEADER);
+        if (lastError != null) {
+            return lastError.toString();
+        }
+        List<Map<String, ?>> deaths = properties.getXDeathHeader();
+        if (deaths != null && !deaths.isEmpty()) {
+            return deaths.get(0).get("reason") + " in " + deaths.get(0).get("queue");
+        }
+        return null;
+    }
+
+    private static long deathCountOf(MessageProperties properties) {
+        List<Map<String, ?>> deaths = properties.getXDeathHeader();
+        if (deaths == null) {
+            return 0;
+        }
+        return deaths.stream()
+                .map(death -> death.get("count"))
+                .mapToLong(count -> count instanceof Number number ? number.longValue() : 0)
+                .sum();
+    }
+
+    private static String requireQueue(String stage, DeadLetterSource source) {
+        if (!RabbitMQConfig.STAGE_EXCHANGES.containsKey(stage)) {
+            throw new IllegalArgumentException("Unknown stage: " + stage);
+        }
+        if (!hasQueue(stage, source)) {
+            throw new IllegalArgumentException("Stage has no parking queue: " + stage);
+        }
+        return stage;
+    }
+
+    /**
+     * Every stage has a DLQ; only stages with retry tiers have a parking queue
+     */
+    private static boolean hasQueue(String stage, DeadLetterSource source) {
+        return source != DeadLetterSource.PARKING || RabbitMQConfig.RETRY_QUEUES.contains(stage);
+    }
+
+    private static String queueName(String stage, DeadLetterSource source) {
+        return source == DeadLetterSource.PARKING
+                ? RabbitMQConfig.parkingQueue(stage)
+                : RabbitMQConfig.deadLetterQueue(stage);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        synchronized (jobs) {
+            jobs.values().forEach(job -> job.cancelled.set(true));
+        }
+        redriveExecutor.shutdown();
+    }
+}
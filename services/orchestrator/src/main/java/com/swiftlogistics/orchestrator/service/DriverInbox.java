@@ -0,0 +1,114 @@
+package com.swiftlogistics.orchestrator.service;
+
+import com.swiftlogistics.orchestrator.dto.OrderSummary;
+import com.swiftlogistics.orchestrator.model.Order;
+import com.swiftlogistics.orchestrator.model.enums.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inbox of ROUTED orders per driver.
+ * Rebuilt on startup with one streaming query, then kept current from route
+ * assignments and delivery status changes, including those broadcast by other
+ * orchestrator nodes, so the driver order list needs no query.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DriverInbox {
+
+    private static final Comparator<OrderSummary> NEWEST_FIRST = Comparator.comparing(
+            OrderSummary::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    private final MongoTemplate mongoTemplate;
+
+    private final Map<String, Map<String, OrderSummary>> ordersByDriver = new ConcurrentHashMap<>();
+    private final Map<String, String> driverIdsByOrder = new ConcurrentHashMap<>();
+
+    /**
+     * Load all ROUTED orders with a single streaming query
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Query query = new Query(Criteria.where("status").is(OrderStatus.ROUTED).and("driverId").ne(null));
+        OrderSummary.FIELDS.forEach(query.fields()::include);
+
+        try (Stream<Order> orders = mongoTemplate.stream(query, Order.class)) {
+            orders.forEach(order -> assign(OrderSummary.from(order)));
+        }
+        log.info("Driver inbox loaded: orders={}, drivers={}", driverIdsByOrder.size(), ordersByDriver.size());
+    }
+
+    /**
+     * Add or move an assigned order to its driver's inbox
+     */
+    public void assign(OrderSummary order) {
+        if (order.getDriverId() == null) {
+            return;
+        }
+        String previousDriverId = driverIdsByOrder.put(order.getOrderId(), order.getDriverId());
+        if (previousDriverId != null && !previousDriverId.equals(order.getDriverId())) {
+            removeFromDriver(previousDriverId, order.getOrderId());
+        }
+        ordersByDriver.computeIfAbsent(order.getDriverId(), id -> new ConcurrentHashMap<>())
+                .put(order.getOrderId(), order);
+    }
+
+    /**
+     * Add an assigned order unless it is already known, keeping the richer local entry
+     */
+    public void assignIfAbsent(OrderSummary order) {
+        if (!driverIdsByOrder.containsKey(order.getOrderId())) {
+            assign(order);
+        }
+    }
+
+    /**
+     * Apply a status change; the order leaves the inbox once it is no longer ROUTED
+     */
+    public void onStatusChange(String orderId, OrderStatus status) {
+        if (status != OrderStatus.ROUTED) {
+            remove(orderId);
+        }
+    }
+
+    public void remove(String orderId) {
+        String driverId = driverIdsByOrder.remove(orderId);
+        if (driverId != null) {
+            removeFromDriver(driverId, orderId);
+        }
+    }
+
+    /**
+     * ROUTED orders of a driver, newest first
+     */
+    public List<OrderSummary> getOrders(String driverId) {
+        Map<String, OrderSummary> orders = ordersByDriver.get(driverId);
+        if (orders == null) {
+            return List.of();
+        }
+        List<OrderSummary> result = new ArrayList<>(orders.values());
+        result.sort(NEWEST_FIRST);
+        return result;
+    }
+
+    private void removeFromDriver(String driverId, String orderId) {
+        ordersByDriver.computeIfPresent(driverId, (id, orders) -> {
+            orders.remove(orderId);
+            return orders.isEmpty() ? null : orders;
+        });
+    }
+}
@@ -0,0 +1,177 @@
+package com.swiftlogistics.orchestrator.service;
+
+import com.swiftlogistics.orchestrator.config.MessageCodec;
+import com.swiftlogistics.orchestrator.config.RabbitMQConfig;
+import com.swiftlogistics.orchestrator.dto.DriverPresence;
+import com.swiftlogistics.orchestrator.model.Driver;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * In-memory driver presence registry.
+ * Drivers are loaded once on startup. Availability changes from login and
+ * logout are broadcast through RabbitMQ and each node, this one included,
+ * applies them to its own registry; if the broadcast fails the change is
+ * applied here only. The node that made a change writes it back to MongoDB
+ * in batches. Available drivers can be looked up by vehicle type without a
+ * query. Only presence is kept here, credentials are read from MongoDB.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DriverPresenceRegistry {
+
+    private static final String ANY_TYPE = "";
+
+    private final MongoTemplate mongoTemplate;
+    private final RabbitTemplate rabbitTemplate;
+    private final MessageCodec messageCodec;
+
+    private final Map<String, DriverPresence> presenceById = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> availableByType = new ConcurrentHashMap<>();
+    // Availability changes not yet written to MongoDB
+    private final Map<String, Boolean> pendingWrites = new ConcurrentHashMap<>();
+
+    /**
+     * Load all drivers with a single streaming query
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Query query = new Query();
+        query.fields().exclude("password");
+        try (Stream<Driver> drivers = mongoTemplate.stream(query, Driver.class)) {
+            drivers.forEach(driver -> apply(presenceOf(driver, driver.isAvailable())));
+        }
+        log.info("Driver presence registry loaded: drivers={}", presenceById.size());
+    }
+
+    /**
+     * Add or replace a driver on every node, e.g. after sign-up
+     */
+    public void register(Driver driver) {
+        publish(presenceOf(driver, driver.isAvailable()));
+    }
+
+    /**
+     * Change a driver's availability on every node; the change is written to
+     * MongoDB with the next flush
+     */
+    public void setAvailable(Driver driver, boolean available) {
+        pendingWrites.put(driver.getDriverId(), available);
+        publish(presenceOf(driver, available));
+    }
+
+    /**
+     * Available drivers, optionally restricted to a vehicle type
+     */
+    public List<DriverPresence> findAvailable(String type) {
+        Set<String> driverIds = availableByType.get(type == null ? ANY_TYPE : type);
+        if (driverIds == null) {
+            return List.of();
+        }
+        return driverIds.stream()
+                .map(presenceById::get)
+                .filter(presence -> presence != null && presence.isAvailable())
+                .toList();
+    }
+
+    /**
+     * Apply a presence change broadcast by any node, this one included
+     */
+    public void apply(DriverPresence presence) {
+        String driverId = presence.getDriverId();
+        DriverPresence previous = presenceById.put(driverId, presence);
+
+        if (previous != null && previous.getType() != null) {
+            indexFor(previous.getType()).remove(driverId);
+        }
+        if (presence.isAvailable()) {
+            indexFor(ANY_TYPE).add(driverId);
+            if (presence.getType() != null) {
+                indexFor(presence.getType()).add(driverId);
+            }
+        } else {
+            indexFor(ANY_TYPE).remove(driverId);
+        }
+    }
+
+    private void publish(DriverPresence presence) {
+        try {
+            MessageProperties properties = new MessageProperties();
+            properties.setDeliveryMode(MessageDeliveryMode.NON_PERSISTENT);
+            rabbitTemplate.send(RabbitMQConfig.EXCHANGE_DRIVER_PRESENCE, "",
+                    messageCodec.encode(RabbitMQConfig.EXCHANGE_DRIVER_PRESENCE, presence, properties));
+        } catch (AmqpException e) {
+            log.warn("Driver presence broadcast failed, applying locally only: driverId={}",
+                    presence.getDriverId(), e);
+            apply(presence);
+        }
+    }
+
+    private static DriverPresence presenceOf(Driver driver, boolean available) {
+        return DriverPresence.builder()
+                .driverId(driver.getDriverId())
+                .driverName(driver.getDriverName())
+                .vehicleId(driver.getVehicleId())
+                .type(driver.getType())
+                .available(available)
+                .build();
+    }
+
+    private Set<String> indexFor(String type) {
+        return availableByType.computeIfAbsent(type, key -> ConcurrentHashMap.newKeySet());
+    }
+
+    /**
+     * Write pending availability changes with one bulk write
+     */
+    @Scheduled(fixedDelayString = "${orchestrator.drivers.flush-interval-ms:2000}")
+    @PreDestroy
+    public void flush() {
+        if (pendingWrites.isEmpty()) {
+            return;
+        }
+
+        Map<String, Boolean> batch = new HashMap<>();
+        for (Map.Entry<String, Boolean> entry : pendingWrites.entrySet()) {
+            batch.put(entry.getKey(), entry.getValue());
+            // Keep the entry if it changed again while building the batch
+            pendingWrites.remove(entry.getKey(), entry.getValue());
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Driver.class);
+        batch.forEach((driverId, available) -> bulk.updateOne(
+                new Query(Criteria.where("driverId").is(driverId)),
+                new Update().set("isAvailable", available)));
+
+        try {
+            bulk.execute();
+            log.debug("Flushed driver availability: drivers={}", batch.size());
+        } catch (Exception e) {
+            log.error("Failed to flush driver availability: drivers={}", batch.size(), e);
+            // Retry with the next flush unless a newer change is already pending
+            batch.forEach(pendingWrites::putIfAbsent);
+        }
+    }
+}
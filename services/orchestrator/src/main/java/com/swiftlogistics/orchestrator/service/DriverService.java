@@ -1,16 +1,20 @@
 package com.swiftlogistics.orchestrator.service;
 
 import com.swiftlogistics.orchestrator.dto.DriverUpdateMessage;
+import com.swiftlogistics.orchestrator.dto.OrderSearchCriteria;
+import com.swiftlogistics.orchestrator.dto.OrderSummary;
 import com.swiftlogistics.orchestrator.messaging.publisher.SsePublisher;
 import com.swiftlogistics.orchestrator.model.Order;
 import com.swiftlogistics.orchestrator.model.Route;
 import com.swiftlogistics.orchestrator.model.enums.EventSource;
 import com.swiftlogistics.orchestrator.model.enums.EventType;
 import com.swiftlogistics.orchestrator.model.enums.OrderStatus;
-import com.swiftlogistics.orchestrator.repository.OrderRepository;
-import com.swiftlogistics.orchestrator.repository.RouteRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -21,35 +25,54 @@ import java.util.Optional;
 @RequiredArgsConstructor
 @Slf4j
 public class DriverService {
-    private final OrderRepository orderRepository;
-    private final RouteRepository routeRepository;
+    private final MongoTemplate mongoTemplate;
+    private final RouteService routeService;
     private final SsePublisher ssePublisher;
     private final EventService eventService;
+    private final OrderTransitionService orderTransitionService;
+    private final OrderSearchService orderSearchService;
+    private final DriverInbox driverInbox;
 
     /**
-     * Get orders by status and dricer
+     * Get a driver's ROUTED orders from the in-memory inbox
      */
-    public List<Order> getPendingOrdersForDriver(String driverId) {
-        return orderRepository.findByStatusAndDriverId(OrderStatus.ROUTED, driverId);
+    public List<OrderSummary> getPendingOrdersForDriver(String driverId) {
+        return driverInbox.getOrders(driverId);
+    }
+
+    /**
+     * Get orders by status and dricer, reading only the projected fields
+     */
+    public List<Object> getPendingOrdersForDriver(String driverId, OrderProjection projection) {
+        OrderSearchCriteria criteria = OrderSearchCriteria.builder()
+                .driverId(driverId)
+                .status(OrderStatus.ROUTED)
+                .build();
+        return orderSearchService.findAll(criteria, projection);
     }
 
     /**
      * Get order details for driver
      */
     public DriverUpdateMessage getOrderDetails(String orderId) {
-        Optional<Order> order = orderRepository.findById(orderId);
-        if (order.isEmpty()) {
+        Optional<RouteService.OrderRoute> orderRoute = routeService.getOrderWithRoute(orderId);
+        if (orderRoute.isEmpty()) {
             throw new RuntimeException("Order not found with id: " + orderId);
         }
-        Order orderData = order.get();
+        Order orderData = orderRoute.get().order();
 
-        Optional<Route> route = routeRepository.findById(orderData.getRouteId());
-        if (route.isEmpty()) {
+        Route routeData = orderRoute.get().route();
+        if (routeData == null) {
             throw new RuntimeException("Route not found for order: " + orderId);
         }
-        Route routeData = route.get();
 
-        // Construct the driver update message
+        return toDriverUpdate(orderData, routeData);
+    }
+
+    /**
+     * Construct the driver update message for an order and its route
+     */
+    public DriverUpdateMessage toDriverUpdate(Order orderData, Route routeData) {
         return DriverUpdateMessage.builder()
                 .driverId(orderData.getDriverId())
                 .orderId(orderData.getOrderId())
@@ -61,20 +84,42 @@ public class DriverService {
                 .waypoints(routeData.getWaypoints())
                 .timestamp(LocalDateTime.now())
                 .build();
+    }
+
+    /**
+     * Record that the driver has seen an assignment; only the assigned driver
+     * can acknowledge, and only before the delivery started
+     */
+    public void acknowledgeAssignment(String orderId, String driverId) {
+        Query awaitingAck = new Query(Criteria.where("orderId").is(orderId)
+                .and("driverId").is(driverId)
+                .and("status").in(OrderStatus.ROUTED, OrderStatus.ASSIGNED));
+        if (!mongoTemplate.exists(awaitingAck, Order.class)) {
+            log.warn("Rejected acknowledgement: driverId={}, orderId={}", driverId, orderId);
+            throw new RuntimeException("Order " + orderId + " is not awaiting acknowledgement by driver " + driverId);
         }
+        eventService.logSuccessEvent(orderId, EventType.DRIVER_ASSIGNED, EventSource.DRIVER_APP,
+                "Driver " + driverId + " acknowledged order: " + orderId);
+    }
 
     /**
      * start delivery for order
      */
     public void startDelivery(String orderId) {
-        Optional<Order> orderOpt = orderRepository.findById(orderId);
-        if (orderOpt.isEmpty()) {
-            throw new RuntimeException("Order not found with id: " + orderId);
+        startDelivery(orderId, null);
+    }
+
+    /**
+     * start delivery for order on behalf of a driver, who must be the one assigned to it
+     */
+    public void startDelivery(String orderId, String driverId) {
+        boolean applied = orderTransitionService.transitionForDriver(orderId, OrderStatus.IN_TRANSIT,
+                new Update().set("pickedUpAt", LocalDateTime.now()), driverId);
+        if (!applied) {
+            log.warn("Start of delivery rejected: driverId={}, orderId={}", driverId, orderId);
+            throw new RuntimeException("Order not found, not assigned to driver or not ready for delivery: " + orderId);
         }
-        Order order = orderOpt.get();
-        order.setStatus(OrderStatus.IN_TRANSIT);
-        order.setPickedUpAt(LocalDateTime.now());
-        orderRepository.save(order);
+        driverInbox.remove(orderId);
 
         // Publish the status update
         ssePublisher.publishOrderStatusUpdate(orderId, OrderStatus.IN_TRANSIT, "Driver started delivery");
@@ -88,14 +133,20 @@ public class DriverService {
      * complete delivery for order
      */
     public void completeDelivery(String orderId) {
-        Optional<Order> orderOpt = orderRepository.findById(orderId);
-        if (orderOpt.isEmpty()) {
-            throw new RuntimeException("Order not found with id: " + orderId);
+        completeDelivery(orderId, null);
+    }
+
+    /**
+     * complete delivery for order on behalf of a driver, who must be the one assigned to it
+     */
+    public void completeDelivery(String orderId, String driverId) {
+        boolean applied = orderTransitionService.transitionForDriver(orderId, OrderStatus.DELIVERED,
+                new Update().set("deliveredAt", LocalDateTime.now()), driverId);
+        if (!applied) {
+            log.warn("Completion of delivery rejected: driverId={}, orderId={}", driverId, orderId);
+            throw new RuntimeException("Order not found, not assigned to driver or not in transit: " + orderId);
         }
-        Order order = orderOpt.get();
-        order.setStatus(OrderStatus.DELIVERED);
-        order.setDeliveredAt(LocalDateTime.now());
-        orderRepository.save(order);
+        driverInbox.remove(orderId);
 
         // Publish the status update
         ssePublisher.publishOrderStatusUpdate(orderId, OrderStatus.DELIVERED, "Driver completed delivery");
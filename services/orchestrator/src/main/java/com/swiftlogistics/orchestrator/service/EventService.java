@@ -18,6 +18,7 @@ import java.util.List;
 public class EventService {
 
     private final EventRepository eventRepository;
+    private final EventWriter eventWriter;
 
     /**
      * Log an event to MongoDB for auditing
@@ -42,6 +43,7 @@ public class EventService {
 
     /**
      * Comprehensive event logging method
+     * Events are handed to the asynchronous EventWriter and persisted in batches
      */
     public void logEvent(String orderId, EventType eventType, EventSource source, String description, EventStatus status) {
         try {
@@ -54,8 +56,8 @@ public class EventService {
                     .status(status)
                     .build();
 
-            eventRepository.save(event);
-            
+            eventWriter.write(event);
+
             log.info("Event logged: orderId={}, eventType={}, source={}, status={}",
                     orderId, eventType, source, status);
 
@@ -73,4 +75,11 @@ public class EventService {
         return eventRepository.findByOrderIdOrderByTimestampDesc(orderId);
     }
 
+    /**
+     * Number of events stored for an order; events are never removed, so it only grows
+     */
+    public long countOrderEvents(String orderId) {
+        return eventRepository.countByOrderId(orderId);
+    }
+
 }
\ No newline at end of file
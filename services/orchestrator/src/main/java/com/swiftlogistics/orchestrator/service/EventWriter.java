@@ -0,0 +1,216 @@
+package com.swiftlogistics.orchestrator.service;
+
+import com.swiftlogistics.orchestrator.cache.OrderResponseCache;
+import com.swiftlogistics.orchestrator.model.Event;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Asynchronous audit event sink.
+ * Events are buffered in a bounded queue and written by a background thread
+ * with one insertMany per batch, flushed when the batch is full or the
+ * flush interval elapses. Remaining events are flushed on shutdown.
+ */
+@Component
+@Slf4j
+public class EventWriter implements SmartLifecycle {
+
+    public enum Durability {
+        FIRE_AND_FORGET, // return as soon as the event is buffered
+        WAIT_FOR_FLUSH   // block the caller until the batch is written
+    }
+
+    private record PendingEvent(Event event, CompletableFuture<Void> flushed) {
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final OrderResponseCache orderResponseCache;
+    private final BlockingQueue<PendingEvent> buffer;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long offerTimeoutMs;
+    private final Durability durability;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public EventWriter(MongoTemplate mongoTemplate,
+                       OrderResponseCache orderResponseCache,
+                       @Value("${orchestrator.events.buffer-size:8192}") int bufferSize,
+                       @Value("${orchestrator.events.batch-size:256}") int batchSize,
+                       @Value("${orchestrator.events.flush-interval-ms:200}") long flushIntervalMs,
+                       @Value("${orchestrator.events.offer-timeout-ms:50}") long offerTimeoutMs,
+                       @Value("${orchestrator.events.durability:FIRE_AND_FORGET}") Durability durability) {
+        this.mongoTemplate = mongoTemplate;
+        this.orderResponseCache = orderResponseCache;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.durability = durability;
+    }
+
+    /**
+     * Queue an event for writing.
+     * When the buffer stays full for the offer timeout the caller writes the
+     * event itself, which slows producers down instead of dropping audit records.
+     */
+    public void write(Event event) {
+        PendingEvent pending = new PendingEvent(event,
+                durability == Durability.WAIT_FOR_FLUSH ? new CompletableFuture<>() : null);
+
+        boolean queued;
+        try {
+            queued = running && buffer.offer(pending, offerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+
+        if (!queued) {
+            log.debug("Event buffer unavailable, writing event directly: orderId={}", event.getOrderId());
+            mongoTemplate.insert(event);
+            orderResponseCache.invalidateEvents(event.getOrderId());
+            return;
+        }
+
+        if (pending.flushed() != null) {
+            awaitFlush(pending);
+        }
+    }
+
+    private void awaitFlush(PendingEvent pending) {
+        try {
+            pending.flushed().get(flushIntervalMs * 10 + 5_000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for event flush", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new RuntimeException("Failed to flush event for order: " + pending.event().getOrderId(), e);
+        }
+    }
+
+    private void drainLoop() {
+        List<PendingEvent> batch = new ArrayList<>(batchSize);
+
+        while (running || !buffer.isEmpty()) {
+            try {
+                PendingEvent first = buffer.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Fill the batch until it is full or the flush interval elapses
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize && running) {
+                    buffer.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingEvent next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                buffer.drainTo(batch, batchSize - batch.size());
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                // Stop waiting: write the events already taken, then drain whatever is left
+                running = false;
+                flush(batch);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Event> events = new ArrayList<>(batch.size());
+        for (PendingEvent pending : batch) {
+            events.add(pending.event());
+        }
+
+        try {
+            mongoTemplate.insert(events, Event.class);
+            events.forEach(event -> orderResponseCache.invalidateEvents(event.getOrderId()));
+            log.debug("Flushed {} events", events.size());
+            batch.forEach(pending -> {
+                if (pending.flushed() != null) {
+                    pending.flushed().complete(null);
+                }
+            });
+        } catch (Exception e) {
+            log.error("Failed to flush {} events", events.size(), e);
+            batch.forEach(pending -> {
+                if (pending.flushed() != null) {
+                    pending.flushed().completeExceptionally(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Number of events waiting to be written
+     */
+    public int getPendingCount() {
+        return buffer.size();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writerThread = Thread.ofPlatform()
+                .name("event-writer")
+                .daemon(true)
+                .start(this::drainLoop);
+        log.info("Event writer started: durability={}, batchSize={}, flushIntervalMs={}",
+                durability, batchSize, flushIntervalMs);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            writerThread.join(flushIntervalMs * 10 + 5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Pick up events queued while the writer thread was exiting
+        List<PendingEvent> remaining = new ArrayList<>();
+        buffer.drainTo(remaining);
+        flush(remaining);
+        log.info("Event writer stopped");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Stop after the web server and listener containers so their last events are flushed
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+}
@@ -0,0 +1,157 @@
+package com.swiftlogistics.orchestrator.service;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.swiftlogistics.orchestrator.model.Order;
+import com.swiftlogistics.orchestrator.model.Route;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * Units of work for a batch of inbound messages, one per order.
+ * The orders are read with one query up front. On commit the routes of every
+ * unit that may apply are upserted first, then all order writes go to MongoDB
+ * as one unordered bulkWrite, and routes of units that did not apply are
+ * removed again; events go through the batched EventWriter as usual. As routes
+ * are written before the orders, no order is left pointing at a missing route
+ * when a write fails and the batch is retried. Each transition is guarded by
+ * the order's status and version, so a unit whose order changed since it was
+ * read does not apply, exactly as with a single OrderUnitOfWork.
+ */
+@Slf4j
+public class OrderBatch {
+
+    private final MongoTemplate mongoTemplate;
+    private final BiFunction<String, Order, OrderUnitOfWork> unitFactory;
+    private final Map<String, Order> orders = new HashMap<>();
+    private final Map<String, OrderUnitOfWork> units = new LinkedHashMap<>();
+    private boolean committed;
+
+    OrderBatch(Collection<String> orderIds, MongoTemplate mongoTemplate,
+               BiFunction<String, Order, OrderUnitOfWork> unitFactory) {
+        this.mongoTemplate = mongoTemplate;
+        this.unitFactory = unitFactory;
+        if (!orderIds.isEmpty()) {
+            mongoTemplate.find(new Query(Criteria.where("orderId").in(orderIds)), Order.class)
+                    .forEach(order -> orders.put(order.getOrderId(), order));
+        }
+    }
+
+    /**
+     * Unit of work for an order of the batch; at most one per order
+     */
+    public OrderUnitOfWork begin(String orderId) {
+        if (units.containsKey(orderId)) {
+            throw new IllegalStateException("Order already has a unit of work in this batch: " + orderId);
+        }
+        Order order = orders.get(orderId);
+        if (order == null) {
+            throw new RuntimeException("Order not found: " + orderId);
+        }
+        OrderUnitOfWork unit = unitFactory.apply(orderId, order);
+        units.put(orderId, unit);
+        return unit;
+    }
+
+    /**
+     * Drop an order's unit, e.g. when handling its message failed
+     */
+    public void discard(String orderId) {
+        units.remove(orderId);
+    }
+
+    /**
+     * Write all units and return the ids of the orders whose unit applied
+     */
+    public Set<String> commit() {
+        if (committed) {
+            throw new IllegalStateException("Order batch already committed");
+        }
+        committed = true;
+
+        Map<String, OrderUnitOfWork.OrderWrite> writes = new LinkedHashMap<>();
+        Set<String> applied = new HashSet<>();
+        for (OrderUnitOfWork unit : units.values()) {
+            OrderUnitOfWork.OrderWrite write = unit.prepareWrite();
+            if (write != null) {
+                writes.put(unit.getOrderId(), write);
+            } else if (!unit.transitionRejected()) {
+                // Events only
+                applied.add(unit.getOrderId());
+            }
+        }
+
+        List<Route> routes = new ArrayList<>();
+        for (OrderUnitOfWork unit : units.values()) {
+            if (writes.containsKey(unit.getOrderId()) || applied.contains(unit.getOrderId())) {
+                routes.addAll(unit.routes());
+            }
+        }
+        OrderUnitOfWork.saveRoutes(mongoTemplate, routes);
+
+        if (!writes.isEmpty()) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class);
+            writes.values().forEach(write -> bulk.updateOne(write.query(), write.update()));
+            BulkWriteResult result = bulk.execute();
+
+            if (result.getMatchedCount() == writes.size()) {
+                applied.addAll(writes.keySet());
+            } else {
+                applied.addAll(resolveApplied(writes));
+            }
+        }
+
+        List<Route> rejectedRoutes = new ArrayList<>();
+        for (String orderId : writes.keySet()) {
+            if (!applied.contains(orderId)) {
+                rejectedRoutes.addAll(units.get(orderId).routes());
+            }
+        }
+        OrderUnitOfWork.removeRoutes(mongoTemplate, rejectedRoutes);
+
+        for (OrderUnitOfWork unit : units.values()) {
+            if (applied.contains(unit.getOrderId())) {
+                unit.completed();
+            }
+        }
+
+        log.debug("Order batch committed: units={}, writes={}, applied={}, routes={}",
+                units.size(), writes.size(), applied.size(), routes.size() - rejectedRoutes.size());
+        return applied;
+    }
+
+    /**
+     * Some guarded writes did not match: a transition applied if the order now
+     * has the target status and exactly the version it would have written
+     */
+    private Set<String> resolveApplied(Map<String, OrderUnitOfWork.OrderWrite> writes) {
+        Query query = new Query(Criteria.where("orderId").in(writes.keySet()));
+        query.fields().include("orderId", "status", "version");
+
+        Set<String> applied = new HashSet<>();
+        for (Order order : mongoTemplate.find(query, Order.class)) {
+            OrderUnitOfWork.OrderWrite write = writes.get(order.getOrderId());
+            if (write.expectedStatus() == null
+                    || (write.expectedStatus() == order.getStatus()
+                        && order.getVersion() != null && order.getVersion() == write.expectedVersion())) {
+                applied.add(order.getOrderId());
+            } else {
+                log.info("Order transition not applied: orderId={}, target={}",
+                        order.getOrderId(), write.expectedStatus());
+            }
+        }
+        return applied;
+    }
+}
@@ -0,0 +1,95 @@
+package com.swiftlogistics.orchestrator.service;
+
+import com.swiftlogistics.orchestrator.dto.OrderSummary;
+import com.swiftlogistics.orchestrator.model.Order;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fields to read and return for order list endpoints.
+ * Without a fields= parameter list endpoints return OrderSummary; with one
+ * they return exactly the requested fields. Either way only those fields are
+ * read from MongoDB.
+ */
+public final class OrderProjection {
+
+    // Order fields a client may request; internal fields such as the outbox are not exposed
+    private static final Set<String> SELECTABLE = Set.of(
+            "orderId", "customerId", "deliveryAddress", "city", "postalCode", "country", "status",
+            "createdAt", "updatedAt", "driverId", "vehicleId", "routeId", "billedAt", "packageReadyAt",
+            "routedAt", "pickedUpAt", "deliveredAt", "totalAmount", "billingStatus", "version");
+
+    private static final OrderProjection SUMMARY = new OrderProjection(null);
+
+    private final Set<String> fields;
+
+    private OrderProjection(Set<String> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Parse a comma separated fields= parameter; null or blank selects the summary view
+     *
+     * @throws IllegalArgumentException for unknown fields
+     */
+    public static OrderProjection parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return SUMMARY;
+        }
+
+        Set<String> selected = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!SELECTABLE.contains(name)) {
+                throw new IllegalArgumentException("Unknown order field: " + name);
+            }
+            selected.add(name);
+        }
+        return selected.isEmpty() ? SUMMARY : new OrderProjection(selected);
+    }
+
+    public static OrderProjection summary() {
+        return SUMMARY;
+    }
+
+    /**
+     * Restrict the query to the selected fields plus any the caller needs internally
+     */
+    public Query applyTo(Query query, String... requiredFields) {
+        (fields == null ? OrderSummary.FIELDS : fields).forEach(query.fields()::include);
+        for (String field : requiredFields) {
+            query.fields().include(field);
+        }
+        return query;
+    }
+
+    /**
+     * Response body for one order read with this projection
+     */
+    public Object render(Order order) {
+        if (fields == null) {
+            return OrderSummary.from(order);
+        }
+
+        BeanWrapper wrapper = new BeanWrapperImpl(order);
+        Map<String, Object> view = new LinkedHashMap<>();
+        for (String field : fields) {
+            view.put(field, wrapper.getPropertyValue(field));
+        }
+        return view;
+    }
+
+    public List<Object> render(List<Order> orders) {
+        return orders.stream().map(this::render).toList();
+    }
+}
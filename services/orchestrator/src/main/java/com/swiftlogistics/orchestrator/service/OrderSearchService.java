@@ -0,0 +1,137 @@
+package com.swiftlogistics.orchestrator.service;
+
+import com.swiftlogistics.orchestrator.dto.OrderPage;
+import com.swiftlogistics.orchestrator.dto.OrderSearchCriteria;
+import com.swiftlogistics.orchestrator.model.Order;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Order search with keyset pagination.
+ * Results are ordered newest first by (createdAt, orderId) and each page
+ * continues strictly after the last order of the previous one, so deep pages
+ * cost the same as the first as long as a compound index on Order matches the
+ * filter.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderSearchService {
+
+    private static final Sort ORDER = Sort.by(Sort.Direction.DESC, "createdAt", "orderId");
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${orchestrator.orders.page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${orchestrator.orders.max-page-size:200}")
+    private int maxPageSize;
+
+    /**
+     * Find one page of orders matching the criteria
+     *
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param limit  page size, defaulted and capped by configuration
+     */
+    public OrderPage<Object> search(OrderSearchCriteria criteria, String cursor, Integer limit,
+                                    OrderProjection projection) {
+        int pageSize = limit == null || limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+
+        Query query = new Query(toCriteria(criteria, cursor))
+                .with(ORDER)
+                .limit(pageSize + 1);
+        // The cursor is built from the last order, so its sort keys are always read
+        projection.applyTo(query, "createdAt", "orderId");
+
+        List<Order> orders = new ArrayList<>(mongoTemplate.find(query, Order.class));
+        boolean hasMore = orders.size() > pageSize;
+        if (hasMore) {
+            orders.remove(pageSize);
+        }
+
+        String nextCursor = hasMore ? encodeCursor(orders.get(orders.size() - 1)) : null;
+        return OrderPage.builder()
+                .items(projection.render(orders))
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    /**
+     * All orders matching the criteria, newest first, for the unpaged list endpoints
+     */
+    public List<Object> findAll(OrderSearchCriteria criteria, OrderProjection projection) {
+        Query query = projection.applyTo(new Query(toCriteria(criteria, null)).with(ORDER));
+        return projection.render(mongoTemplate.find(query, Order.class));
+    }
+
+    private Criteria toCriteria(OrderSearchCriteria criteria, String cursor) {
+        List<Criteria> filters = new ArrayList<>();
+
+        if (criteria.getCustomerId() != null) {
+            filters.add(Criteria.where("customerId").is(criteria.getCustomerId()));
+        }
+        if (criteria.getDriverId() != null) {
+            filters.add(Criteria.where("driverId").is(criteria.getDriverId()));
+        }
+        if (criteria.getStatus() != null) {
+            filters.add(Criteria.where("status").is(criteria.getStatus()));
+        }
+        if (criteria.getCity() != null) {
+            filters.add(Criteria.where("city").is(criteria.getCity()));
+        }
+        if (criteria.getCreatedFrom() != null) {
+            filters.add(Criteria.where("createdAt").gte(criteria.getCreatedFrom()));
+        }
+        if (criteria.getCreatedTo() != null) {
+            filters.add(Criteria.where("createdAt").lt(criteria.getCreatedTo()));
+        }
+
+        if (cursor != null && !cursor.isEmpty()) {
+            Cursor position = decodeCursor(cursor);
+            // Seek past the last order of the previous page
+            filters.add(new Criteria().orOperator(
+                    Criteria.where("createdAt").lt(position.createdAt()),
+                    new Criteria().andOperator(
+                            Criteria.where("createdAt").is(position.createdAt()),
+                            Criteria.where("orderId").lt(position.orderId()))));
+        }
+
+        return filters.isEmpty() ? new Criteria() : new Criteria().andOperator(filters);
+    }
+
+    private record Cursor(LocalDateTime createdAt, String orderId) {
+    }
+
+    private static String encodeCursor(Order order) {
+        String raw = order.getCreatedAt() + "|" + order.getOrderId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return new Cursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
@@ -1,6 +1,11 @@
 package com.swiftlogistics.orchestrator.service;
 
+import com.mongodb.bulk.BulkWriteError;
+import com.swiftlogistics.orchestrator.cache.CustomerCache;
+import com.swiftlogistics.orchestrator.config.RabbitMQConfig;
+import com.swiftlogistics.orchestrator.dto.BatchOrderResult;
 import com.swiftlogistics.orchestrator.dto.CreateOrderRequest;
+import com.swiftlogistics.orchestrator.dto.OrderSearchCriteria;
 import com.swiftlogistics.orchestrator.dto.RouteRequestMessage;
 import com.swiftlogistics.orchestrator.model.Customer;
 import com.swiftlogistics.orchestrator.model.Order;
@@ -9,16 +14,22 @@ import com.swiftlogistics.orchestrator.dto.WarehouseRequestMessage;
 import com.swiftlogistics.orchestrator.model.enums.EventSource;
 import com.swiftlogistics.orchestrator.model.enums.EventType;
 import com.swiftlogistics.orchestrator.model.enums.OrderStatus;
-import com.swiftlogistics.orchestrator.repository.CustomerRepository;
 import com.swiftlogistics.orchestrator.repository.OrderRepository;
-import com.swiftlogistics.orchestrator.messaging.publisher.OrderPublisher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -26,60 +37,30 @@ import java.util.Optional;
 public class OrderService {
 
     private final OrderRepository orderRepository;
-    private final CustomerRepository customerRepository;
-    private final OrderPublisher orderPublisher;
+    private final MongoTemplate mongoTemplate;
+    private final CustomerCache customerCache;
+    private final OutboxService outboxService;
     private final EventService eventService;
+    private final OrderTransitionService orderTransitionService;
+    private final OrderSearchService orderSearchService;
 
     /**
-     * Step 1: Create a new order and publish to order-created queue
+     * Step 1: Create a new order and queue it for the order-created queue.
+     * The order and its OrderMessage are stored in one write; the OutboxRelay publishes it.
      */
     public Order createOrder(CreateOrderRequest request) {
         try {
-            // Create order entity
-            Order order = Order.builder()
-                    .customerId(request.getCustomerId())
-                    .deliveryAddress(request.getDeliveryAddress())
-                    .city(request.getCity())
-                    .postalCode(request.getPostalCode())
-                    .country(request.getCountry())
-                    .totalAmount(request.getTotalAmount())
-                    .status(OrderStatus.NEW)
-                    .createdAt(LocalDateTime.now())
-                    .updatedAt(LocalDateTime.now())
-                    .build();
-
-            // Save to MongoDB
-            Order savedOrder = orderRepository.save(order);
-            
-            // Log order creation event
-            eventService.logSuccessEvent(
-                    savedOrder.getOrderId(), EventType.ORDER_CREATED, EventSource.ORCHESTRATOR, "Order created successfully"
-            );
-
             // Get customer details
-            Customer customer = customerRepository.findById(request.getCustomerId())
+            Customer customer = customerCache.findById(request.getCustomerId())
                     .orElseThrow();
 
-            // Create message for CMS Adapter (billing)
-            OrderMessage orderMessage = OrderMessage.builder()
-                    .orderId(savedOrder.getOrderId())
-                    .customerId(savedOrder.getCustomerId())
-                    .customerName(customer.getCustomerName())
-                    .customerEmail(customer.getCustomerEmail())
-                    .deliveryAddress(savedOrder.getDeliveryAddress())
-                    .city(savedOrder.getCity())
-                    .postalCode(savedOrder.getPostalCode())
-                    .country(savedOrder.getCountry())
-                    .totalAmount(savedOrder.getTotalAmount())
-                    .timestamp(LocalDateTime.now())
-                    .build();
+            // Save to MongoDB
+            Order savedOrder = orderRepository.insert(buildOrder(request, customer));
+            outboxService.wakeRelay();
 
-            // Publish to order-created queue for CMS Adapter
-            orderPublisher.publishOrderCreated(orderMessage);
-            
-            // Log order sent to CMS event
+            // Log order creation event
             eventService.logSuccessEvent(
-                    savedOrder.getOrderId(), EventType.ORDER_SENT_TO_CMS, EventSource.ORCHESTRATOR, "Order sent to CMS for billing"
+                    savedOrder.getOrderId(), EventType.ORDER_CREATED, EventSource.ORCHESTRATOR, "Order created successfully"
             );
 
             log.info("Order created successfully: orderId={}",
@@ -94,66 +75,182 @@ public class OrderService {
     }
 
     /**
-     * Update order status (called by billing/warehouse/route subscribers)
+     * Create many orders at once.
+     * Customers are resolved with one query, valid orders are inserted with one
+     * unordered bulk insert and their OrderMessages are published by the OutboxRelay in
+     * confirmed batches. Returns one result per request, in request order.
      */
-    public void updateOrderStatus(String orderId, OrderStatus status) {
-        try {
-            Optional<Order> orderOpt = orderRepository.findById(orderId);
-            if (orderOpt.isEmpty()) {
-                throw new RuntimeException("Order not found: " + orderId);
+    public List<BatchOrderResult> createOrders(List<CreateOrderRequest> requests) {
+        List<BatchOrderResult> results = new ArrayList<>(requests.size());
+        List<Order> orders = new ArrayList<>(requests.size());
+        List<BatchOrderResult> created = new ArrayList<>(requests.size());
+
+        Set<String> customerIds = new HashSet<>();
+        for (CreateOrderRequest request : requests) {
+            if (request != null && request.getCustomerId() != null) {
+                customerIds.add(request.getCustomerId());
+            }
+        }
+        Map<String, Customer> customers = customerCache.findAllById(customerIds);
+
+        for (int i = 0; i < requests.size(); i++) {
+            CreateOrderRequest request = requests.get(i);
+            String error = validate(request, customers);
+            if (error != null) {
+                results.add(BatchOrderResult.builder().index(i).status("REJECTED").error(error).build());
+                continue;
             }
 
-            Order order = orderOpt.get();
-            order.setStatus(status);
-            order.setUpdatedAt(LocalDateTime.now());
-            orderRepository.save(order);
+            Order order = buildOrder(request, customers.get(request.getCustomerId()));
+            BatchOrderResult result = BatchOrderResult.builder()
+                    .index(i)
+                    .orderId(order.getOrderId())
+                    .status("CREATED")
+                    .build();
+            orders.add(order);
+            created.add(result);
+            results.add(result);
+        }
 
-            log.info("Order status updated: orderId={}, status={}", orderId, status);
+        if (orders.isEmpty()) {
+            return results;
+        }
 
+        // Unordered, so one failing order neither stops the others nor hides which were inserted
+        Set<Integer> failed = new HashSet<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)
+                    .insert(orders)
+                    .execute();
+        } catch (BulkOperationException e) {
+            log.error("Failed to insert some orders of batch: size={}, failed={}",
+                    orders.size(), e.getErrors().size(), e);
+            for (BulkWriteError error : e.getErrors()) {
+                failed.add(error.getIndex());
+            }
         } catch (Exception e) {
-            log.error("Failed to update order status: orderId={}", orderId, e);
-            throw new RuntimeException("Failed to update order status", e);
+            log.error("Failed to insert order batch: size={}", orders.size(), e);
+            for (int i = 0; i < orders.size(); i++) {
+                failed.add(i);
+            }
         }
-    }
 
-    public void updateOrderStatus(String orderId, OrderStatus status, String billingStatus, Double totalAmount) {
-        try {
-            Optional<Order> orderOpt = orderRepository.findById(orderId);
-            if (orderOpt.isEmpty()) {
-                throw new RuntimeException("Order not found: " + orderId);
+        for (int i = 0; i < orders.size(); i++) {
+            if (failed.contains(i)) {
+                created.get(i).setStatus("FAILED");
+                created.get(i).setError("Failed to create order");
+            } else {
+                eventService.logSuccessEvent(
+                        orders.get(i).getOrderId(), EventType.ORDER_CREATED, EventSource.ORCHESTRATOR,
+                        "Order created successfully"
+                );
             }
+        }
+        if (failed.size() < orders.size()) {
+            outboxService.wakeRelay();
+        }
+
+        log.info("Order batch created: submitted={}, created={}", requests.size(), orders.size() - failed.size());
+        return results;
+    }
 
-            Order order = orderOpt.get();
-            order.setBillingStatus(billingStatus);
-            order.setStatus(status);
-            order.setTotalAmount(totalAmount);
-            order.setUpdatedAt(LocalDateTime.now());
-            orderRepository.save(order);
+    private String validate(CreateOrderRequest request, Map<String, Customer> customers) {
+        if (request == null) {
+            return "Order is required";
+        }
+        if (request.getCustomerId() == null || request.getCustomerId().isEmpty()) {
+            return "Customer ID is required";
+        }
+        if (request.getDeliveryAddress() == null || request.getDeliveryAddress().isEmpty()) {
+            return "Delivery address is required";
+        }
+        if (request.getTotalAmount() != null && request.getTotalAmount() < 0) {
+            return "Total amount must not be negative";
+        }
+        if (!customers.containsKey(request.getCustomerId())) {
+            return "Customer not found";
+        }
+        return null;
+    }
 
-            log.info("Order billing updated: orderId={}, billingStatus={}",
-                    orderId, billingStatus);
+    /**
+     * Build a new order with its OrderMessage for the CMS Adapter (billing) in the outbox
+     */
+    private Order buildOrder(CreateOrderRequest request, Customer customer) {
+        String orderId = new ObjectId().toHexString();
+
+        // Create message for CMS Adapter (billing)
+        OrderMessage orderMessage = OrderMessage.builder()
+                .orderId(orderId)
+                .customerId(request.getCustomerId())
+                .customerName(customer.getCustomerName())
+                .customerEmail(customer.getCustomerEmail())
+                .deliveryAddress(request.getDeliveryAddress())
+                .city(request.getCity())
+                .postalCode(request.getPostalCode())
+                .country(request.getCountry())
+                .totalAmount(request.getTotalAmount())
+                .timestamp(LocalDateTime.now())
+                .build();
+
+        return Order.builder()
+                .orderId(orderId)
+                .customerId(request.getCustomerId())
+                .deliveryAddress(request.getDeliveryAddress())
+                .city(request.getCity())
+                .postalCode(request.getPostalCode())
+                .country(request.getCountry())
+                .totalAmount(request.getTotalAmount())
+                .status(OrderStatus.NEW)
+                .version(0L)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .outbox(new ArrayList<>(List.of(outboxService.message(
+                        RabbitMQConfig.EXCHANGE_ORDER_CREATED,
+                        RabbitMQConfig.ROUTING_KEY_ORDER_CREATED,
+                        orderMessage,
+                        EventType.ORDER_SENT_TO_CMS,
+                        "Order sent to CMS for billing"))))
+                .outboxDueAt(LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * Update order status (called by billing/warehouse/route subscribers)
+     * Returns false when the order is not in a state that allows the transition
+     */
+    public boolean updateOrderStatus(String orderId, OrderStatus status) {
+        try {
+            return orderTransitionService.transition(orderId, status);
 
         } catch (Exception e) {
-            log.error("Failed to update order billing: orderId={}", orderId, e);
-            throw new RuntimeException("Failed to update order billing", e);
+            log.error("Failed to update order status: orderId={}", orderId, e);
+            throw new RuntimeException("Failed to update order status", e);
+        }
+    }
+
+    /**
+     * Record the billing result in the unit of work
+     */
+    public void updateOrderStatus(OrderUnitOfWork work, OrderStatus status, String billingStatus, Double totalAmount) {
+        work.transition(status)
+                .set("billingStatus", billingStatus);
+        if (totalAmount != null) {
+            work.set("totalAmount", totalAmount);
         }
     }
 
     /**
      * Step 3: Send order to warehouse after billing completion
+     * The warehouse request is written together with the rest of the unit of work
      */
-    public void sendToWarehouse(String orderId) {
+    public void sendToWarehouse(OrderUnitOfWork work) {
         try {
-            Optional<Order> orderOpt = orderRepository.findById(orderId);
-            if (orderOpt.isEmpty()) {
-                throw new RuntimeException("Order not found: " + orderId);
-            }
+            Order order = work.order();
 
-            Order order = orderOpt.get();
-            
             // Create warehouse request message
             WarehouseRequestMessage warehouseRequest = WarehouseRequestMessage.builder()
-                    .orderId(orderId)
+                    .orderId(order.getOrderId())
                     .customerId(order.getCustomerId())
                     .deliveryAddress(order.getDeliveryAddress())
                     .city(order.getCity())
@@ -164,20 +261,18 @@ public class OrderService {
                     .timestamp(LocalDateTime.now())
                     .build();
 
-            // Publish to warehouse queue for WMS Adapter
-            orderPublisher.publishToWarehouse(warehouseRequest);
-            
-            // Log event
-            eventService.logSuccessEvent(
-                    orderId, EventType.ORDER_SENT_TO_WMS, EventSource.ORCHESTRATOR, "Order sent to WMS for processing"
-            );
-
-            log.info("Order sent to warehouse: orderId={}", orderId);
+            // Queue for the warehouse queue (WMS Adapter)
+            work.enqueue(outboxService.message(
+                    RabbitMQConfig.EXCHANGE_WAREHOUSE,
+                    RabbitMQConfig.ROUTING_KEY_WAREHOUSE_REQUEST,
+                    warehouseRequest,
+                    EventType.ORDER_SENT_TO_WMS,
+                    "Order sent to WMS for processing"));
 
         } catch (Exception e) {
-            log.error("Failed to send order to warehouse: orderId={}", orderId, e);
+            log.error("Failed to send order to warehouse: orderId={}", work.getOrderId(), e);
             eventService.logFailedEvent(
-                    orderId, EventType.ORDER_SENT_TO_WMS, EventSource.ORCHESTRATOR, "Failed to send order to WMS"
+                    work.getOrderId(), EventType.ORDER_SENT_TO_WMS, EventSource.ORCHESTRATOR, "Failed to send order to WMS"
             );
             throw e;
         }
@@ -185,39 +280,33 @@ public class OrderService {
 
     /**
      * Step 4: Request route planning after warehouse processing
+     * The route request is written together with the rest of the unit of work
      */
-    public void requestRoutePlanning(String orderId) {
+    public void requestRoutePlanning(OrderUnitOfWork work) {
         try {
-            Optional<Order> orderOpt = orderRepository.findById(orderId);
-            if (orderOpt.isEmpty()) {
-                throw new RuntimeException("Order not found: " + orderId);
-            }
+            Order order = work.order();
 
-            Order order = orderOpt.get();
-            
             // Create route planning request
             RouteRequestMessage routeRequest = RouteRequestMessage.builder()
-                    .orderId(orderId)
+                    .orderId(order.getOrderId())
                     .deliveryAddress(order.getDeliveryAddress())
                     .city(order.getCity())
                     .postalCode(order.getPostalCode())
                     .country(order.getCountry())
                     .build();
 
-            // Publish to route planning queue for ROS Adapter
-            orderPublisher.publishRoutePlanningRequest(routeRequest);
-            
-            // Log event
-            eventService.logSuccessEvent(
-                    orderId, EventType.ORDER_SENT_TO_ROS, EventSource.ORCHESTRATOR, "Route planning requested"
-            );
-
-            log.info("Route planning requested: orderId={}", orderId);
+            // Queue for the route planning queue (ROS Adapter)
+            work.enqueue(outboxService.message(
+                    RabbitMQConfig.EXCHANGE_ROUTE,
+                    RabbitMQConfig.ROUTING_KEY_ROUTE_PLANNING,
+                    routeRequest,
+                    EventType.ORDER_SENT_TO_ROS,
+                    "Route planning requested"));
 
         } catch (Exception e) {
-            log.error("Failed to request route planning: orderId={}", orderId, e);
+            log.error("Failed to request route planning: orderId={}", work.getOrderId(), e);
             eventService.logFailedEvent(
-                    orderId, EventType.ORDER_SENT_TO_ROS, EventSource.ORCHESTRATOR, "Failed to request route planning"
+                    work.getOrderId(), EventType.ORDER_SENT_TO_ROS, EventSource.ORCHESTRATOR, "Failed to request route planning"
             );
             throw e;
         }
@@ -231,10 +320,13 @@ public class OrderService {
     }
 
     /**
-     * Get orders by customer
+     * Get orders by customer, reading only the projected fields
      */
-    public List<Order> getOrdersByCustomer(String customerId) {
-        return orderRepository.findByCustomerId(customerId);
+    public List<Object> getOrdersByCustomer(String customerId, OrderProjection projection) {
+        OrderSearchCriteria criteria = OrderSearchCriteria.builder()
+                .customerId(customerId)
+                .build();
+        return orderSearchService.findAll(criteria, projection);
     }
 
 }
\ No newline at end of file
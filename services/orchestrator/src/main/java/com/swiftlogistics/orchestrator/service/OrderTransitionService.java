@@ -0,0 +1,100 @@
+package com.swiftlogistics.orchestrator.service;
+
+import com.mongodb.client.result.UpdateResult;
+import com.swiftlogistics.orchestrator.cache.OrderVersionCache;
+import com.swiftlogistics.orchestrator.model.Order;
+import com.swiftlogistics.orchestrator.model.enums.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Applies order status transitions as single conditional updates.
+ * The update only matches while the order is in one of the target state's
+ * allowed predecessors, so concurrent listeners cannot overwrite each other
+ * and redelivered messages become no-ops.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderTransitionService {
+
+    private final MongoTemplate mongoTemplate;
+    private final OrderVersionCache orderVersionCache;
+
+    /**
+     * Transition an order to the target status
+     */
+    public boolean transition(String orderId, OrderStatus target) {
+        return transition(orderId, target, new Update(), null);
+    }
+
+    /**
+     * Transition an order and set the given fields in the same write
+     */
+    public boolean transition(String orderId, OrderStatus target, Update changes) {
+        return transition(orderId, target, changes, null);
+    }
+
+    /**
+     * Transition an order, additionally requiring the stored version to match
+     */
+    public boolean transition(String orderId, OrderStatus target, Update changes, Long expectedVersion) {
+        return apply(orderId, target, changes, transitionQuery(orderId, target, expectedVersion));
+    }
+
+    /**
+     * Transition an order on behalf of a driver, additionally requiring the
+     * order to be assigned to that driver; a null driverId skips that check
+     */
+    public boolean transitionForDriver(String orderId, OrderStatus target, Update changes, String driverId) {
+        return apply(orderId, target, changes, transitionQuery(orderId, target, null, driverId));
+    }
+
+    private boolean apply(String orderId, OrderStatus target, Update changes, Query query) {
+        UpdateResult result = mongoTemplate.updateFirst(query, transitionUpdate(target, changes), Order.class);
+
+        if (result.getModifiedCount() == 0) {
+            log.info("Order transition not applied: orderId={}, target={}", orderId, target);
+            return false;
+        }
+
+        orderVersionCache.invalidate(orderId);
+        log.info("Order transitioned: orderId={}, status={}", orderId, target);
+        return true;
+    }
+
+    /**
+     * Filter matching the order only while the transition is allowed
+     */
+    Query transitionQuery(String orderId, OrderStatus target, Long expectedVersion) {
+        return transitionQuery(orderId, target, expectedVersion, null);
+    }
+
+    Query transitionQuery(String orderId, OrderStatus target, Long expectedVersion, String driverId) {
+        Criteria criteria = Criteria.where("orderId").is(orderId)
+                .and("status").in(target.allowedPredecessors());
+        if (expectedVersion != null) {
+            criteria.and("version").is(expectedVersion);
+        }
+        if (driverId != null) {
+            criteria.and("driverId").is(driverId);
+        }
+        return new Query(criteria);
+    }
+
+    /**
+     * Add the status change and version bump to the given changes
+     */
+    Update transitionUpdate(OrderStatus target, Update changes) {
+        return changes.set("status", target)
+                .set("updatedAt", LocalDateTime.now())
+                .inc("version", 1);
+    }
+}
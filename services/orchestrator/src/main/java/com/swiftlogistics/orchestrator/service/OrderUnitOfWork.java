@@ -0,0 +1,272 @@
+package com.swiftlogistics.orchestrator.service;
+
+import com.swiftlogistics.orchestrator.cache.OrderVersionCache;
+import com.swiftlogistics.orchestrator.cache.RouteCache;
+import com.swiftlogistics.orchestrator.model.Order;
+import com.swiftlogistics.orchestrator.model.OutboxMessage;
+import com.swiftlogistics.orchestrator.model.Route;
+import com.swiftlogistics.orchestrator.model.enums.EventSource;
+import com.swiftlogistics.orchestrator.model.enums.EventStatus;
+import com.swiftlogistics.orchestrator.model.enums.EventType;
+import com.swiftlogistics.orchestrator.model.enums.OrderStatus;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Unit of work scoped to one inbound message for one order.
+ * Order changes, outbox messages, route inserts and audit events are collected
+ * while the message is handled and written on commit: routes first, upserted by
+ * id, then the order changes as one conditional update and events through the
+ * batched EventWriter. Writing routes before the order means an order never
+ * points at a route that was not saved; if the transition does not apply the
+ * routes are removed again and nothing else is written. Units created by an OrderBatch start with the batch's copy of the
+ * order and leave the order write to the batch's bulk write.
+ */
+@Slf4j
+public class OrderUnitOfWork {
+
+    private record PendingEvent(EventType eventType, EventSource source, String description, EventStatus status) {
+    }
+
+    /**
+     * Pending order write; expectedStatus is null for plain updates
+     */
+    record OrderWrite(Query query, Update update, OrderStatus expectedStatus, long expectedVersion) {
+    }
+
+    @Getter
+    private final String orderId;
+
+    private final MongoTemplate mongoTemplate;
+    private final OrderTransitionService orderTransitionService;
+    private final OutboxService outboxService;
+    private final EventService eventService;
+    private final RouteCache routeCache;
+    private final OrderVersionCache orderVersionCache;
+
+    private final Update orderUpdate = new Update();
+    private final List<Route> routes = new ArrayList<>();
+    private final Set<PendingEvent> events = new LinkedHashSet<>();
+    private OrderStatus targetStatus;
+    private boolean hasOrderChanges;
+    private boolean hasFieldChanges;
+    private boolean hasOutboxMessages;
+    private Order order;
+    private boolean committed;
+
+    OrderUnitOfWork(String orderId, Order order, MongoTemplate mongoTemplate,
+                    OrderTransitionService orderTransitionService, OutboxService outboxService,
+                    EventService eventService, RouteCache routeCache, OrderVersionCache orderVersionCache) {
+        this.orderId = orderId;
+        this.order = order;
+        this.mongoTemplate = mongoTemplate;
+        this.orderTransitionService = orderTransitionService;
+        this.outboxService = outboxService;
+        this.eventService = eventService;
+        this.routeCache = routeCache;
+        this.orderVersionCache = orderVersionCache;
+    }
+
+    /**
+     * Current order document, read at most once per unit of work
+     */
+    public Order order() {
+        if (order == null) {
+            order = mongoTemplate.findById(orderId, Order.class);
+            if (order == null) {
+                throw new RuntimeException("Order not found: " + orderId);
+            }
+        }
+        return order;
+    }
+
+    public OrderUnitOfWork transition(OrderStatus status) {
+        this.targetStatus = status;
+        return this;
+    }
+
+    public OrderUnitOfWork set(String field, Object value) {
+        orderUpdate.set(field, value);
+        hasOrderChanges = true;
+        hasFieldChanges = true;
+        return this;
+    }
+
+    public OrderUnitOfWork enqueue(OutboxMessage message) {
+        outboxService.append(orderUpdate, message);
+        hasOrderChanges = true;
+        hasOutboxMessages = true;
+        return this;
+    }
+
+    public OrderUnitOfWork insertRoute(Route route) {
+        routes.add(route);
+        return this;
+    }
+
+    /**
+     * Record an audit event; identical events within one unit of work are written once
+     */
+    public OrderUnitOfWork logEvent(EventType eventType, EventSource source, String description, EventStatus status) {
+        events.add(new PendingEvent(eventType, source, description, status));
+        return this;
+    }
+
+    public OrderUnitOfWork logSuccessEvent(EventType eventType, EventSource source, String description) {
+        return logEvent(eventType, source, description, EventStatus.SUCCESS);
+    }
+
+    public OrderUnitOfWork logFailedEvent(EventType eventType, EventSource source, String description) {
+        return logEvent(eventType, source, description, EventStatus.FAILED);
+    }
+
+    public OrderUnitOfWork logPendingEvent(EventType eventType, EventSource source, String description) {
+        return logEvent(eventType, source, description, EventStatus.PENDING);
+    }
+
+    /**
+     * Write everything collected so far.
+     * Returns false when the status transition did not apply, in which case the
+     * routes, outbox messages and events are discarded. A transition staged
+     * after reading the order only applies while the order still has the
+     * version that was read.
+     */
+    public boolean commit() {
+        markCommitted();
+        saveRoutes(mongoTemplate, routes);
+
+        if (targetStatus != null) {
+            // If the order was read, the staged changes may depend on it: only apply to that version
+            Long expectedVersion = order == null ? null : order.getVersion();
+            if (!orderTransitionService.transition(orderId, targetStatus, orderUpdate, expectedVersion)) {
+                removeRoutes(mongoTemplate, routes);
+                return false;
+            }
+        } else if (hasOrderChanges) {
+            if (hasFieldChanges) {
+                // Visible fields changed, so the order's ETag must change too
+                orderUpdate.set("updatedAt", LocalDateTime.now()).inc("version", 1);
+            }
+            mongoTemplate.updateFirst(new Query(Criteria.where("orderId").is(orderId)), orderUpdate, Order.class);
+        }
+
+        completed();
+        return true;
+    }
+
+    /**
+     * Upsert routes by id, so writing them again for a redelivered message is harmless
+     */
+    static void saveRoutes(MongoTemplate mongoTemplate, List<Route> routes) {
+        if (routes.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Route.class);
+        for (Route route : routes) {
+            bulk.replaceOne(new Query(Criteria.where("_id").is(route.getRouteId())), route,
+                    FindAndReplaceOptions.options().upsert());
+        }
+        bulk.execute();
+    }
+
+    /**
+     * Remove routes saved for a transition that did not apply; no order refers to them
+     */
+    static void removeRoutes(MongoTemplate mongoTemplate, List<Route> routes) {
+        if (routes.isEmpty()) {
+            return;
+        }
+        List<String> routeIds = routes.stream().map(Route::getRouteId).toList();
+        try {
+            mongoTemplate.remove(new Query(Criteria.where("_id").in(routeIds)), Route.class);
+        } catch (RuntimeException e) {
+            // Only leaves unreferenced routes behind
+            log.warn("Failed to remove routes of a rejected transition: routeIds={}", routeIds, e);
+        }
+    }
+
+    private void markCommitted() {
+        if (committed) {
+            throw new IllegalStateException("Unit of work already committed for order: " + orderId);
+        }
+        committed = true;
+    }
+
+    /**
+     * Build the order write for a batch commit.
+     * Transitions are checked against the batch's copy of the order first and
+     * guarded by its version, so the batch can tell afterwards which applied.
+     * Returns null when there is nothing to write to the order, or when the
+     * transition does not apply to the order as read; check transitionRejected().
+     */
+    OrderWrite prepareWrite() {
+        markCommitted();
+        Order current = order();
+        long version = current.getVersion() == null ? 0 : current.getVersion();
+
+        if (targetStatus != null) {
+            if (!targetStatus.canTransitionFrom(current.getStatus())) {
+                log.info("Order transition not applied: orderId={}, target={}", orderId, targetStatus);
+                return null;
+            }
+            return new OrderWrite(
+                    orderTransitionService.transitionQuery(orderId, targetStatus, current.getVersion()),
+                    orderTransitionService.transitionUpdate(targetStatus, orderUpdate),
+                    targetStatus, version + 1);
+        }
+        if (!hasOrderChanges) {
+            return null;
+        }
+        if (hasFieldChanges) {
+            orderUpdate.set("updatedAt", LocalDateTime.now()).inc("version", 1);
+        }
+        return new OrderWrite(new Query(Criteria.where("orderId").is(orderId)), orderUpdate, null, version);
+    }
+
+    /**
+     * Whether a transition was staged that does not apply to the order
+     */
+    boolean transitionRejected() {
+        return targetStatus != null && !targetStatus.canTransitionFrom(order().getStatus());
+    }
+
+    /**
+     * Routes to insert when the unit applies
+     */
+    List<Route> routes() {
+        return routes;
+    }
+
+    /**
+     * Finish a unit whose order write applied: caches, events and the outbox relay
+     */
+    void completed() {
+        if (targetStatus != null || hasOrderChanges) {
+            orderVersionCache.invalidate(orderId);
+        }
+        routes.forEach(route -> routeCache.put(orderId, route));
+
+        for (PendingEvent event : events) {
+            eventService.logEvent(orderId, event.eventType(), event.source(), event.description(), event.status());
+        }
+
+        if (hasOutboxMessages) {
+            outboxService.wakeRelay();
+        }
+
+        log.debug("Unit of work committed: orderId={}, status={}, routes={}, events={}",
+                orderId, targetStatus, routes.size(), events.size());
+    }
+}
@@ -0,0 +1,73 @@
+package com.swiftlogistics.orchestrator.service;
+
+import com.swiftlogistics.orchestrator.messaging.publisher.OutboxRelay;
+import com.swiftlogistics.orchestrator.model.Order;
+import com.swiftlogistics.orchestrator.model.OutboxMessage;
+import com.swiftlogistics.orchestrator.model.enums.EventType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stores outgoing messages on their order document so the order change and
+ * the message are persisted in a single atomic write. The OutboxRelay
+ * publishes them afterwards.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxService {
+
+    private final MongoTemplate mongoTemplate;
+    private final OutboxRelay outboxRelay;
+
+    /**
+     * Build an outbox entry; the event is logged once the broker confirms it
+     */
+    public OutboxMessage message(String exchange, String routingKey, Object payload,
+                                 EventType eventType, String description) {
+        return OutboxMessage.builder()
+                .messageId(new ObjectId().toHexString())
+                .exchange(exchange)
+                .routingKey(routingKey)
+                .payload(payload)
+                .eventType(eventType)
+                .description(description)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * Add the outbox entry to an update so it is written together with other order changes.
+     * An earlier due time is kept, and a relay lease on the order is left alone.
+     */
+    public Update append(Update update, OutboxMessage message) {
+        return update.push("outbox", message)
+                .min("outboxDueAt", LocalDateTime.now());
+    }
+
+    /**
+     * Queue a message on an existing order
+     */
+    public void enqueue(String orderId, OutboxMessage message) {
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("orderId").is(orderId)),
+                append(new Update(), message),
+                Order.class);
+        wakeRelay();
+    }
+
+    /**
+     * Let the relay pick up newly written messages without waiting for its next poll
+     */
+    public void wakeRelay() {
+        outboxRelay.wakeUp();
+    }
+}
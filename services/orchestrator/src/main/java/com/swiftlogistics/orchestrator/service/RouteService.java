@@ -1,6 +1,6 @@
 package com.swiftlogistics.orchestrator.service;
 
-import com.swiftlogistics.orchestrator.messaging.publisher.SsePublisher;
+import com.swiftlogistics.orchestrator.cache.RouteCache;
 import com.swiftlogistics.orchestrator.model.Order;
 import com.swiftlogistics.orchestrator.model.Route;
 import com.swiftlogistics.orchestrator.model.enums.EventSource;
@@ -10,6 +10,13 @@ import com.swiftlogistics.orchestrator.repository.OrderRepository;
 import com.swiftlogistics.orchestrator.repository.RouteRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -21,48 +28,96 @@ import java.util.Optional;
 @Slf4j
 public class RouteService {
 
+  public record OrderRoute(Order order, Route route) {
+  }
+
+  private final MongoTemplate mongoTemplate;
   private final OrderRepository orderRepository;
   private final RouteRepository routeRepository;
-  private final EventService eventService;
+  private final RouteCache routeCache;
+
+  /**
+   * Record the planned route and the ROUTED transition in the unit of work.
+   * The route is saved before the transition on commit and removed again if it does not apply.
+   */
+  public Route createOrderRoute(OrderUnitOfWork work, List<String> waypoints, String driverId, String vehicleId) {
+    Route route = Route.builder()
+        .routeId(new ObjectId().toHexString())
+        .waypoints(waypoints)
+        .createdAt(LocalDateTime.now())
+        .build();
+
+    work.transition(OrderStatus.ROUTED)
+        .set("routeId", route.getRouteId())
+        .set("driverId", driverId)
+        .set("vehicleId", vehicleId)
+        .set("routedAt", LocalDateTime.now())
+        .insertRoute(route)
+        .logSuccessEvent(
+            EventType.ROUTE_CREATED,
+            EventSource.ROS_ADAPTER,
+            "Route created with driverId: " + driverId
+        );
 
+    log.info("Order route prepared: orderId={}, driverId={}", work.getOrderId(), driverId);
 
-  public Route createOrderRoute(String orderId, List<String> waypoints, String driverId, String vehicleId) {
-    try {
+    return route;
+  }
+
+  /**
+   * Get an order together with its route.
+   * A cached route only costs the order read; on a miss order and route are
+   * fetched in one aggregation and the route is cached.
+   */
+  public Optional<OrderRoute> getOrderWithRoute(String orderId) {
+    Route cachedRoute = routeCache.getForOrder(orderId);
+    if (cachedRoute != null) {
       Optional<Order> order = orderRepository.findById(orderId);
       if (order.isEmpty()) {
-        throw new RuntimeException("Order not found: " + orderId);
+        return Optional.empty();
       }
+      Route route = cachedRoute.getRouteId().equals(order.get().getRouteId())
+          ? cachedRoute
+          : findRoute(orderId, order.get().getRouteId());
+      return Optional.of(new OrderRoute(order.get(), route));
+    }
 
-      Route route = Route.builder()
-          .waypoints(waypoints)
-          .createdAt(LocalDateTime.now())
-          .build();
-
-      Route newRoute = routeRepository.save(route);
-        Order updatedOrder = order.get();
-        updatedOrder.setRouteId(newRoute.getRouteId());
-        updatedOrder.setDriverId(driverId);
-        updatedOrder.setVehicleId(vehicleId);
-        updatedOrder.setStatus(OrderStatus.ROUTED);
-        updatedOrder.setRoutedAt(LocalDateTime.now());
-        orderRepository.save(updatedOrder);
-
-      // Log event
-      eventService.logSuccessEvent(
-            orderId,
-            EventType.ROUTE_CREATED,
-            EventSource.ROS_ADAPTER,
-            "Route created with driverId: " + driverId
-      );
+    TypedAggregation<Order> aggregation = Aggregation.newAggregation(Order.class,
+        Aggregation.match(Criteria.where("orderId").is(orderId)),
+        context -> new Document("$lookup", new Document("from", "routes")
+            .append("let", new Document("routeId", "$routeId"))
+            .append("pipeline", List.of(new Document("$match", new Document("$expr",
+                new Document("$eq", List.of("$_id", new Document("$convert", new Document("input", "$$routeId")
+                    .append("to", "objectId")
+                    .append("onError", "$$routeId")
+                    .append("onNull", null))))))))
+            .append("as", "route")),
+        Aggregation.limit(1));
 
-      log.info("Order route updated: orderId={}, driverId={}", orderId, driverId);
+    Document result = mongoTemplate.aggregate(aggregation, Document.class).getUniqueMappedResult();
+    if (result == null) {
+      return Optional.empty();
+    }
 
-        return newRoute;
+    MongoConverter converter = mongoTemplate.getConverter();
+    Order order = converter.read(Order.class, result);
+    List<Document> routes = result.getList("route", Document.class, List.of());
+    Route route = routes.isEmpty() ? null : converter.read(Route.class, routes.get(0));
+    if (route != null) {
+      routeCache.put(orderId, route);
+    }
+    return Optional.of(new OrderRoute(order, route));
+  }
 
-    } catch (Exception e) {
-      log.error("Failed to update order route: orderId={}", orderId, e);
-      throw e;
+  private Route findRoute(String orderId, String routeId) {
+    Route route = routeCache.get(routeId);
+    if (route == null && routeId != null) {
+      route = routeRepository.findById(routeId).orElse(null);
+      if (route != null) {
+        routeCache.put(orderId, route);
+      }
     }
+    return route;
   }
 
 }
@@ -0,0 +1,38 @@
+package com.swiftlogistics.orchestrator.service;
+
+import com.swiftlogistics.orchestrator.cache.OrderVersionCache;
+import com.swiftlogistics.orchestrator.cache.RouteCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+
+/**
+ * Creates an OrderUnitOfWork for each inbound message, or an OrderBatch for a batch of them
+ */
+@Service
+@RequiredArgsConstructor
+public class UnitOfWorkService {
+
+    private final MongoTemplate mongoTemplate;
+    private final OrderTransitionService orderTransitionService;
+    private final OutboxService outboxService;
+    private final EventService eventService;
+    private final RouteCache routeCache;
+    private final OrderVersionCache orderVersionCache;
+
+    public OrderUnitOfWork begin(String orderId) {
+        return new OrderUnitOfWork(orderId, null, mongoTemplate, orderTransitionService, outboxService, eventService,
+                routeCache, orderVersionCache);
+    }
+
+    /**
+     * Start a batch for the given orders, reading them all with one query
+     */
+    public OrderBatch beginBatch(Collection<String> orderIds) {
+        return new OrderBatch(orderIds, mongoTemplate,
+                (orderId, order) -> new OrderUnitOfWork(orderId, order, mongoTemplate, orderTransitionService,
+                        outboxService, eventService, routeCache, orderVersionCache));
+    }
+}
@@ -0,0 +1,149 @@
+package com.swiftlogistics.orchestrator.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.swiftlogistics.orchestrator.dto.WebhookRegistration;
+import com.swiftlogistics.orchestrator.model.WebhookEndpoint;
+import com.swiftlogistics.orchestrator.repository.WebhookEndpointRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Customer webhook endpoints.
+ * Endpoints are cached per customer for the status notification path; the
+ * cache is dropped on changes made here and expires to pick up changes made
+ * on other nodes.
+ * A URL is only accepted if its host resolves to public addresses (not
+ * loopback, private ranges, cloud metadata at 169.254.169.254 and the like),
+ * and WebhookDispatcher checks the host again before each request. The HTTP
+ * client resolves the host once more when it connects, so a DNS answer that
+ * changes between the check and the connect is only caught by the JVM's DNS
+ * cache, not ruled out. Deliveries do not follow redirects.
+ */
+@Service
+@Slf4j
+public class WebhookService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final WebhookEndpointRepository webhookEndpointRepository;
+    private final Cache<String, List<WebhookEndpoint>> endpointsByCustomer;
+
+    public WebhookService(WebhookEndpointRepository webhookEndpointRepository,
+                          @Value("${orchestrator.webhooks.endpoint-cache-ttl-seconds:60}") long cacheTtlSeconds) {
+        this.webhookEndpointRepository = webhookEndpointRepository;
+        this.endpointsByCustomer = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+                .build();
+    }
+
+    /**
+     * Register a webhook URL; the returned secret is not shown again
+     */
+    public WebhookRegistration register(String customerId, String url) {
+        URI uri = URI.create(url);
+        if (uri.getHost() == null || !("http".equals(uri.getScheme()) || "https".equals(uri.getScheme()))) {
+            throw new IllegalArgumentException("Webhook URL must be an absolute http(s) URL");
+        }
+        requirePublicHost(uri.getHost());
+
+        byte[] secret = new byte[32];
+        RANDOM.nextBytes(secret);
+
+        WebhookEndpoint endpoint = webhookEndpointRepository.insert(WebhookEndpoint.builder()
+                .customerId(customerId)
+                .url(url)
+                .secret(HexFormat.of().formatHex(secret))
+                .createdAt(LocalDateTime.now())
+                .build());
+        endpointsByCustomer.invalidate(customerId);
+
+        log.info("Webhook registered: customerId={}, endpointId={}", customerId, endpoint.getEndpointId());
+        return WebhookRegistration.builder()
+                .endpointId(endpoint.getEndpointId())
+                .url(endpoint.getUrl())
+                .secret(endpoint.getSecret())
+                .build();
+    }
+
+    public List<WebhookEndpoint> getEndpoints(String customerId) {
+        return endpointsByCustomer.get(customerId, webhookEndpointRepository::findByCustomerId);
+    }
+
+    public boolean delete(String customerId, String endpointId) {
+        boolean deleted = webhookEndpointRepository.deleteByEndpointIdAndCustomerId(endpointId, customerId) > 0;
+        endpointsByCustomer.invalidate(customerId);
+        return deleted;
+    }
+
+    private static void requirePublicHost(String host) {
+        InetAddress[] addresses;
+        try {
+            addresses = InetAddress.getAllByName(host);
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Webhook host cannot be resolved: " + host);
+        }
+        for (InetAddress address : addresses) {
+            if (!isPublic(address)) {
+                log.warn("Rejected webhook URL with non-public address: host={}, address={}", host, address);
+                throw new IllegalArgumentException("Webhook URL must resolve to a public address");
+            }
+        }
+    }
+
+    /**
+     * Whether a host resolves, and only to public addresses
+     */
+    public static boolean isPublicHost(String host) {
+        try {
+            return Arrays.stream(InetAddress.getAllByName(host)).allMatch(WebhookService::isPublic);
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+
+    private static boolean isPublic(InetAddress address) {
+        if (address.isAnyLocalAddress() || address.isLoopbackAddress() || address.isLinkLocalAddress()
+                || address.isSiteLocalAddress() || address.isMulticastAddress()) {
+            return false;
+        }
+        byte[] bytes = address.getAddress();
+        if (bytes.length == 16) {
+            // IPv4-compatible (::/96) and NAT64 (64:ff9b::/32) addresses carry an IPv4 address
+            boolean compatible = true;
+            for (int i = 0; i < 12; i++) {
+                compatible &= bytes[i] == 0;
+            }
+            boolean nat64 = bytes[0] == 0x00 && bytes[1] == 0x64
+                    && bytes[2] == (byte) 0xff && bytes[3] == (byte) 0x9b;
+            if (compatible || nat64) {
+                try {
+                    return isPublic(InetAddress.getByAddress(Arrays.copyOfRange(bytes, 12, 16)));
+                } catch (UnknownHostException e) {
+                    return false;
+                }
+            }
+            // Unique local addresses, fc00::/7
+            return (bytes[0] & 0xfe) != 0xfc;
+        }
+        int first = bytes[0] & 0xff;
+        int second = bytes[1] & 0xff;
+        return first != 0                                       // "this" network
+                && !(first == 100 && (second & 0xc0) == 64)     // carrier-grade NAT, 100.64.0.0/10
+                && !(first == 192 && second == 0 && bytes[2] == 0) // protocol assignments, 192.0.0.0/24
+                && !(first == 198 && (second & 0xfe) == 18)     // benchmarking, 198.18.0.0/15
+                && first < 240;                                 // reserved and broadcast
+    }
+}
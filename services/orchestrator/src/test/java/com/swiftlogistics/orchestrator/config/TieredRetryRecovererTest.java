@@ -0,0 +1,151 @@
+package com.swiftlogistics.orchestrator.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class TieredRetryRecovererTest {
+
+    private static final String QUEUE = RabbitMQConfig.QUEUE_BILLING_UPDATES;
+
+    private RabbitTemplate rabbitTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private TieredRetryRecoverer recoverer;
+
+    @BeforeEach
+    void setUp() {
+        rabbitTemplate = mock(RabbitTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        recoverer = new TieredRetryRecoverer(rabbitTemplate, meterRegistry, new long[]{1000, 10000}, 100);
+        confirmWith(true);
+    }
+
+    @Test
+    void firstFailureGoesToFirstTierWithCountAndRootCause() {
+        Message message = message(QUEUE, null);
+
+        recoverer.recover(message, new RuntimeException("wrapper", new IllegalStateException("db down")));
+
+        Message sent = sentTo(RabbitMQConfig.retryQueue(QUEUE, 1));
+        assertThat(sent.getMessageProperties().<Integer>getHeader(RabbitMQConfig.RETRY_COUNT_HEADER)).isEqualTo(1);
+        assertThat(sent.getMessageProperties().<String>getHeader(RabbitMQConfig.LAST_ERROR_HEADER))
+                .isEqualTo("java.lang.IllegalStateException: db down");
+        assertThat(meterRegistry.counter("rabbit.listener.recovered", "queue", QUEUE, "outcome", "retry").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void retryCountFromHeaderSelectsNextTier() {
+        recoverer.recover(message(QUEUE, 1), new RuntimeException("again"));
+
+        Message sent = sentTo(RabbitMQConfig.retryQueue(QUEUE, 2));
+        assertThat(sent.getMessageProperties().<Integer>getHeader(RabbitMQConfig.RETRY_COUNT_HEADER)).isEqualTo(2);
+    }
+
+    @Test
+    void messageIsParkedOnceEveryTierIsUsed() {
+        recoverer.recover(message(QUEUE, 2), new RuntimeException("still failing"));
+
+        sentTo(RabbitMQConfig.parkingQueue(QUEUE));
+        assertThat(meterRegistry.counter("rabbit.listener.recovered", "queue", QUEUE, "outcome", "parked").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void republishKeepsTheReceivedDeliveryMode() {
+        Message message = message(QUEUE, null);
+        // As on an inbound message: only the received mode is set
+        message.getMessageProperties().setDeliveryMode(null);
+        message.getMessageProperties().setReceivedDeliveryMode(MessageDeliveryMode.NON_PERSISTENT);
+
+        recoverer.recover(message, new RuntimeException("failed"));
+
+        assertThat(sentTo(RabbitMQConfig.retryQueue(QUEUE, 1)).getMessageProperties().getDeliveryMode())
+                .isEqualTo(MessageDeliveryMode.NON_PERSISTENT);
+    }
+
+    @Test
+    void lastErrorIsTruncated() {
+        recoverer.recover(message(QUEUE, null), new RuntimeException("x".repeat(2000)));
+
+        assertThat(sentTo(RabbitMQConfig.retryQueue(QUEUE, 1)).getMessageProperties()
+                .<String>getHeader(RabbitMQConfig.LAST_ERROR_HEADER)).hasSize(500);
+    }
+
+    @Test
+    void queueWithoutTiersIsRejected() {
+        assertThatThrownBy(() -> recoverer.recover(message("unknown.queue", null), new RuntimeException("failed")))
+                .isInstanceOf(AmqpRejectAndDontRequeueException.class);
+        verify(rabbitTemplate, never()).send(anyString(), anyString(), any(Message.class), any());
+    }
+
+    @Test
+    void nackedRepublishFailsSoTheDeliveryIsRequeued() {
+        confirmWith(false);
+
+        assertThatThrownBy(() -> recoverer.recover(message(QUEUE, null), new RuntimeException("failed")))
+                .isInstanceOf(AmqpException.class);
+        assertThat(meterRegistry.find("rabbit.listener.recovered").counter()).isNull();
+    }
+
+    @Test
+    void unconfirmedRepublishFails() {
+        doNothing().when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any());
+
+        assertThatThrownBy(() -> recoverer.recover(message(QUEUE, null), new RuntimeException("failed")))
+                .isInstanceOf(AmqpException.class)
+                .hasMessageContaining("No confirm");
+    }
+
+    @Test
+    void batchIsRecoveredMessageByMessage() {
+        recoverer.recover(List.of(message(QUEUE, null), message(QUEUE, 2)), new RuntimeException("failed"));
+
+        sentTo(RabbitMQConfig.retryQueue(QUEUE, 1));
+        sentTo(RabbitMQConfig.parkingQueue(QUEUE));
+    }
+
+    private Message sentTo(String queue) {
+        ArgumentCaptor<Message> captor = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate).send(eq(""), eq(queue), captor.capture(), any(CorrelationData.class));
+        return captor.getValue();
+    }
+
+    private void confirmWith(boolean ack) {
+        doAnswer(invocation -> {
+            CorrelationData correlation = invocation.getArgument(3);
+            correlation.getFuture().complete(new CorrelationData.Confirm(ack, ack ? null : "nack"));
+            return null;
+        }).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    }
+
+    private static Message message(String queue, Integer retries) {
+        MessageProperties properties = new MessageProperties();
+        properties.setConsumerQueue(queue);
+        if (retries != null) {
+            properties.setHeader(RabbitMQConfig.RETRY_COUNT_HEADER, retries);
+        }
+        return new Message("{}".getBytes(), properties);
+    }
+}
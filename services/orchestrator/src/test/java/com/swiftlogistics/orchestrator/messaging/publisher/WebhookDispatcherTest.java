@@ -0,0 +1,257 @@
+package com.swiftlogistics.orchestrator.messaging.publisher;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swiftlogistics.orchestrator.dto.OrderStatusMessage;
+import com.swiftlogistics.orchestrator.dto.WebhookDelivery;
+import com.swiftlogistics.orchestrator.dto.WebhookEvent;
+import com.swiftlogistics.orchestrator.model.WebhookEndpoint;
+import com.swiftlogistics.orchestrator.model.enums.OrderStatus;
+import com.swiftlogistics.orchestrator.service.WebhookService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the dispatcher against a local HTTP server standing in for customer receivers.
+ */
+class WebhookDispatcherTest {
+
+    private static final String CUSTOMER = "c1";
+    private static final String SECRET = "s3cret";
+
+    private record Received(long at, String path, String deliveryId, String timestamp, String signature,
+                            byte[] body) {
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final BlockingQueue<Received> received = new LinkedBlockingQueue<>();
+    private final CountDownLatch releaseSlow = new CountDownLatch(1);
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private WebhookService webhookService;
+    private SimpleMeterRegistry meterRegistry;
+    private WebhookDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/ok", exchange -> respond(exchange, 200));
+        server.createContext("/flaky", exchange ->
+                respond(exchange, failuresLeft.getAndDecrement() > 0 ? 500 : 200));
+        server.createContext("/slow", exchange -> {
+            try {
+                releaseSlow.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200);
+        });
+        server.start();
+
+        webhookService = mock(WebhookService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        // The local receiver is on loopback, which the public-host check would refuse
+        dispatcher = dispatcher(host -> true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseSlow.countDown();
+        dispatcher.shutdown();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void updatesWithinTheLingerTimeArePostedInBatches() throws Exception {
+        endpoints(endpoint("e1", "/ok"));
+
+        for (int i = 1; i <= 5; i++) {
+            publish("o" + i);
+        }
+
+        assertThat(events(next())).containsExactly("o1", "o2", "o3");
+        assertThat(events(next())).containsExactly("o4", "o5");
+        assertThat(received.poll(300, TimeUnit.MILLISECONDS)).isNull();
+        assertThat(meterRegistry.counter("webhook.deliveries", "outcome", "delivered").count()).isEqualTo(2);
+    }
+
+    @Test
+    void requestIsSignedWithTheEndpointSecret() throws Exception {
+        endpoints(endpoint("e1", "/ok"));
+
+        publish("o1");
+
+        Received request = next();
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        mac.update((request.timestamp() + ".").getBytes(StandardCharsets.UTF_8));
+        assertThat(request.signature()).isEqualTo("sha256=" + HexFormat.of().formatHex(mac.doFinal(request.body())));
+        assertThat(delivery(request).getDeliveryId()).isEqualTo(request.deliveryId());
+        assertThat(delivery(request).getCustomerId()).isEqualTo(CUSTOMER);
+    }
+
+    @Test
+    void failedBatchIsRetriedAfterBackoffUnderTheSameDeliveryId() throws Exception {
+        endpoints(endpoint("e1", "/flaky"));
+        failuresLeft.set(1);
+
+        publish("o1");
+
+        Received failed = next();
+        Received retried = next();
+        assertThat(retried.deliveryId()).isEqualTo(failed.deliveryId());
+        assertThat(events(retried)).containsExactly("o1");
+        // First backoff is 400ms with jitter down to half of it
+        assertThat(retried.at() - failed.at()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+        assertThat(meterRegistry.counter("webhook.deliveries", "outcome", "retried").count()).isEqualTo(1);
+    }
+
+    @Test
+    void batchIsDroppedAfterMaxAttempts() throws Exception {
+        endpoints(endpoint("e1", "/flaky"));
+        failuresLeft.set(Integer.MAX_VALUE);
+
+        publish("o1");
+
+        for (int attempt = 0; attempt < 3; attempt++) {
+            next();
+        }
+        assertThat(received.poll(1500, TimeUnit.MILLISECONDS)).isNull();
+        assertThat(meterRegistry.counter("webhook.deliveries", "outcome", "dropped").count()).isEqualTo(1);
+    }
+
+    @Test
+    void slowEndpointDoesNotHoldUpOthers() throws Exception {
+        endpoints(endpoint("slow", "/slow"), endpoint("fast", "/ok"));
+
+        publish("o1");
+        publish("o2");
+
+        // The slow receiver has not answered yet, the fast one gets its batch meanwhile
+        Received fast = next();
+        assertThat(fast.path()).isEqualTo("/ok");
+        assertThat(events(fast)).containsExactly("o1", "o2");
+        assertThat(releaseSlow.getCount()).isEqualTo(1);
+    }
+
+    @Test
+    void removedEndpointDropsItsQueue() throws Exception {
+        endpoints(endpoint("e1", "/ok"));
+
+        publish("o1");
+        dispatcher.remove("e1");
+
+        assertThat(received.poll(500, TimeUnit.MILLISECONDS)).isNull();
+        assertThat(meterRegistry.get("webhook.queue.depth").gauge().value()).isZero();
+        assertThat(meterRegistry.counter("webhook.events.dropped", "reason", "deleted").count()).isEqualTo(1);
+    }
+
+    @Test
+    void endpointDeletedElsewhereIsDroppedOnDispatch() throws Exception {
+        endpoints(endpoint("e1", "/ok"));
+        publish("o1");
+        endpoints();
+
+        assertThat(received.poll(500, TimeUnit.MILLISECONDS)).isNull();
+        assertThat(meterRegistry.get("webhook.queue.depth").gauge().value()).isZero();
+    }
+
+    @Test
+    void requestToAHostThatNoLongerResolvesPubliclyIsNotSent() throws Exception {
+        dispatcher.shutdown();
+        dispatcher = dispatcher(host -> false);
+        endpoints(endpoint("e1", "/ok"));
+
+        publish("o1");
+
+        // Every attempt is refused until the batch is dropped after max attempts
+        assertThat(received.poll(2000, TimeUnit.MILLISECONDS)).isNull();
+        assertThat(meterRegistry.counter("webhook.requests.blocked").count()).isEqualTo(3);
+        assertThat(meterRegistry.counter("webhook.deliveries", "outcome", "dropped").count()).isEqualTo(1);
+    }
+
+    private WebhookDispatcher dispatcher(Predicate<String> hostAllowed) {
+        // batch-size 3, linger 100ms, one request in flight per endpoint, backoff from 400ms
+        return new WebhookDispatcher(webhookService, objectMapper, meterRegistry,
+                3, 100, 1000, 1, 3, 400, 1000, 5000, 4, hostAllowed);
+    }
+
+    private void respond(HttpExchange exchange, int status) throws IOException {
+        // Requests to the slow receiver are not recorded, it only answers once released
+        byte[] body = exchange.getRequestBody().readAllBytes();
+        if (!"/slow".equals(exchange.getRequestURI().getPath())) {
+            received.add(new Received(System.nanoTime(), exchange.getRequestURI().getPath(),
+                    exchange.getRequestHeaders().getFirst("X-Swift-Delivery"),
+                    exchange.getRequestHeaders().getFirst("X-Swift-Timestamp"),
+                    exchange.getRequestHeaders().getFirst("X-Swift-Signature"),
+                    body));
+        }
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+
+    private void endpoints(WebhookEndpoint... endpoints) {
+        when(webhookService.getEndpoints(CUSTOMER)).thenReturn(List.of(endpoints));
+    }
+
+    private WebhookEndpoint endpoint(String endpointId, String path) {
+        return WebhookEndpoint.builder()
+                .endpointId(endpointId)
+                .customerId(CUSTOMER)
+                .url("http://127.0.0.1:" + server.getAddress().getPort() + path)
+                .secret(SECRET)
+                .build();
+    }
+
+    private void publish(String orderId) {
+        dispatcher.publish(CUSTOMER, "node-" + orderId, OrderStatusMessage.builder()
+                .orderId(orderId)
+                .status(OrderStatus.BILLED)
+                .timestamp(LocalDateTime.now())
+                .build());
+    }
+
+    private Received next() throws InterruptedException {
+        Received request = received.poll(5, TimeUnit.SECONDS);
+        assertThat(request).as("webhook request").isNotNull();
+        return request;
+    }
+
+    private WebhookDelivery delivery(Received request) throws IOException {
+        return objectMapper.readValue(request.body(), WebhookDelivery.class);
+    }
+
+    private List<String> events(Received request) throws IOException {
+        return delivery(request).getEvents().stream().map(WebhookEvent::getOrderId).toList();
+    }
+}
@@ -0,0 +1,282 @@
+package com.swiftlogistics.orchestrator.messaging.subscriber;
+
+import com.swiftlogistics.orchestrator.config.RabbitMQConfig;
+import com.swiftlogistics.orchestrator.config.TieredRetryRecoverer;
+import com.swiftlogistics.orchestrator.service.OrderBatch;
+import com.swiftlogistics.orchestrator.service.OrderUnitOfWork;
+import com.swiftlogistics.orchestrator.service.UnitOfWorkService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import com.rabbitmq.client.Channel;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class OrderUpdateBatcherTest {
+
+    record StatusUpdate(String orderId, String status) {
+    }
+
+    private static final String QUEUE = RabbitMQConfig.QUEUE_BILLING_UPDATES;
+    private static final String RETRY_QUEUE = RabbitMQConfig.retryQueue(QUEUE, 1);
+
+    private final Jackson2JsonMessageConverter converter = new Jackson2JsonMessageConverter();
+    private final List<StatusUpdate> staged = Collections.synchronizedList(new ArrayList<>());
+    private final List<StatusUpdate> handledSingly = Collections.synchronizedList(new ArrayList<>());
+
+    private UnitOfWorkService unitOfWorkService;
+    private TieredRetryRecoverer retryRecoverer;
+    private OrderStripedExecutor stripedExecutor;
+    private OrderBatch batch;
+    private Channel channel;
+    private OrderUpdateBatcher batcher;
+    private long deliveryTag;
+
+    @BeforeEach
+    void setUp() {
+        unitOfWorkService = mock(UnitOfWorkService.class);
+        retryRecoverer = mock(TieredRetryRecoverer.class);
+        batch = mock(OrderBatch.class);
+        channel = mock(Channel.class);
+        when(unitOfWorkService.beginBatch(anyCollection())).thenReturn(batch);
+        when(batch.begin(anyString())).thenAnswer(invocation -> mock(OrderUnitOfWork.class));
+        when(retryRecoverer.retry(any(), any())).thenReturn(RETRY_QUEUE);
+        stripedExecutor = new OrderStripedExecutor(new SimpleMeterRegistry(), 1);
+        batcher = new OrderUpdateBatcher(unitOfWorkService, converter, retryRecoverer, stripedExecutor,
+                new OrderRetryHolds(new SimpleMeterRegistry()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        stripedExecutor.shutdown();
+    }
+
+    @Test
+    void stagesFirstUpdatePerOrderAndHandlesTheRestAfterCommit() throws Exception {
+        when(batch.commit()).thenReturn(Set.of("o1", "o2"));
+
+        process(message("o1", "BILLED"), message("o2", "BILLED"), message("o1", "PROCESSING"));
+
+        assertThat(staged).containsExactly(new StatusUpdate("o1", "BILLED"), new StatusUpdate("o2", "BILLED"));
+        assertThat(handledSingly).containsExactly(new StatusUpdate("o1", "PROCESSING"));
+        verify(channel).basicAck(3, true);
+    }
+
+    @Test
+    void coalescedRepeatKeepsPositionOfLatestArrival() {
+        when(batch.commit()).thenReturn(Set.of("o1"));
+
+        // [A(k1), B(k2), A'(k1)] must apply as B then A', not A' then B
+        process(message("o1", "READY"), message("o1", "ROUTING"), message("o1", "READY"));
+
+        assertThat(staged).containsExactly(new StatusUpdate("o1", "ROUTING"));
+        assertThat(handledSingly).containsExactly(new StatusUpdate("o1", "READY"));
+    }
+
+    @Test
+    void updateThatFailsToStageIsHandledOnItsOwn() {
+        when(batch.commit()).thenReturn(Set.of("o2"));
+
+        process(message("o1", "BOOM"), message("o2", "BILLED"));
+
+        verify(batch).discard("o1");
+        assertThat(staged).containsExactly(new StatusUpdate("o2", "BILLED"));
+        assertThat(handledSingly).containsExactly(new StatusUpdate("o1", "BOOM"));
+    }
+
+    @Test
+    void messageWithoutKeyIsParkedWithoutFailingTheBatch() {
+        when(batch.commit()).thenReturn(Set.of("o2"));
+        Message bad = message("o1", null);
+
+        process(bad, message("o2", "BILLED"));
+
+        verify(retryRecoverer).park(eq(bad), any(NullPointerException.class));
+        assertThat(staged).containsExactly(new StatusUpdate("o2", "BILLED"));
+    }
+
+    @Test
+    void unconvertibleMessageIsParked() {
+        when(batch.commit()).thenReturn(Set.of());
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        properties.setDeliveryTag(++deliveryTag);
+        Message bad = new Message("not json".getBytes(StandardCharsets.UTF_8), properties);
+
+        process(bad);
+
+        verify(retryRecoverer).park(eq(bad), any());
+    }
+
+    @Test
+    void failedCommitRetriesEveryMessageOfTheStripe() {
+        RuntimeException failure = new RuntimeException("bulk write failed");
+        when(batch.commit()).thenThrow(failure);
+        Message first = message("o1", "BILLED");
+        Message second = message("o2", "BILLED");
+
+        process(first, second);
+
+        verify(retryRecoverer).retry(first, failure);
+        verify(retryRecoverer).retry(second, failure);
+        assertThat(handledSingly).isEmpty();
+    }
+
+    @Test
+    void failedSingleHandlingRetriesOnlyThatMessage() {
+        when(batch.commit()).thenReturn(Set.of("o1"));
+        Message deferred = message("o1", "FAIL_SINGLY");
+
+        process(message("o1", "BILLED"), deferred);
+
+        verify(retryRecoverer).retry(eq(deferred), any(IllegalStateException.class));
+        verify(retryRecoverer, never()).park(any(), any());
+    }
+
+    @Test
+    void laterUpdatesOfAnOrderFollowAFailedOneToRetry() {
+        when(batch.commit()).thenReturn(Set.of("o1", "o2"));
+        Message failing = message("o1", "FAIL_SINGLY");
+        Message later = message("o1", "PROCESSING");
+
+        process(message("o1", "BILLED"), message("o2", "BILLED"), failing, later, message("o2", "PROCESSING"));
+
+        verify(retryRecoverer).retry(eq(failing), any(IllegalStateException.class));
+        verify(retryRecoverer).holdBack(later, RETRY_QUEUE);
+        assertThat(handledSingly).containsExactly(new StatusUpdate("o2", "PROCESSING"));
+    }
+
+    @Test
+    void updatesOfLaterBatchesWaitBehindTheRetriedOne() {
+        when(batch.commit()).thenReturn(Set.of("o1", "o2"));
+        Message failing = message("o1", "FAIL_SINGLY");
+        process(message("o1", "BILLED"), failing);
+
+        Message later = message("o1", "PROCESSING");
+        process(later, message("o2", "BILLED"));
+
+        verify(retryRecoverer).holdBack(later, RETRY_QUEUE);
+        assertThat(staged).containsExactly(new StatusUpdate("o1", "BILLED"), new StatusUpdate("o2", "BILLED"));
+
+        // The held-back update comes back before the failed one and goes round again
+        Message laterReturned = returned(later);
+        process(laterReturned);
+        verify(retryRecoverer).holdBack(laterReturned, RETRY_QUEUE);
+
+        // Once the failed update is back, both apply in order
+        process(returned(failing), returned(later));
+        assertThat(staged).endsWith(new StatusUpdate("o1", "FAIL_SINGLY"));
+        assertThat(handledSingly).containsExactly(new StatusUpdate("o1", "PROCESSING"));
+    }
+
+    @Test
+    void updatesBehindAParkedOneAreParked() {
+        when(batch.commit()).thenReturn(Set.of("o1"));
+        when(retryRecoverer.retry(any(), any())).thenReturn(RabbitMQConfig.parkingQueue(QUEUE));
+        Message failing = message("o1", "FAIL_SINGLY");
+        Message later = message("o1", "PROCESSING");
+
+        process(message("o1", "BILLED"), failing, later);
+
+        verify(retryRecoverer).park(eq(later), any(IllegalStateException.class));
+        assertThat(handledSingly).isEmpty();
+
+        // The hold ends with the parked update, new ones apply again
+        process(message("o1", "READY"));
+        assertThat(staged).endsWith(new StatusUpdate("o1", "READY"));
+    }
+
+    @Test
+    void failedRepublishRequeuesOnlyThatOrdersMessages() throws Exception {
+        when(batch.commit()).thenReturn(Set.of("o1", "o2"));
+        Message first = message("o1", "BILLED");
+        Message other = message("o2", "BILLED");
+        Message failing = message("o1", "FAIL_SINGLY");
+        when(retryRecoverer.retry(eq(failing), any())).thenThrow(new AmqpException("nacked"));
+
+        process(first, other, failing, message("o1", "PROCESSING"), message("o2", "PROCESSING"));
+
+        verify(retryRecoverer, never()).holdBack(any(), any());
+        assertThat(handledSingly).containsExactly(new StatusUpdate("o2", "PROCESSING"));
+        verify(channel).basicAck(1, false);
+        verify(channel).basicAck(2, false);
+        verify(channel).basicNack(3, false, true);
+        verify(channel).basicNack(4, false, true);
+        verify(channel).basicAck(5, false);
+        verifyNoMoreInteractions(channel);
+    }
+
+    @Test
+    void failedHoldBackRequeuesTheOrdersLaterMessages() throws Exception {
+        when(batch.commit()).thenReturn(Set.of("o1", "o2"));
+        process(message("o1", "BILLED"), message("o1", "FAIL_SINGLY"));
+
+        Message later = message("o1", "PROCESSING");
+        doThrow(new AmqpException("nacked")).when(retryRecoverer).holdBack(later, RETRY_QUEUE);
+        process(later, message("o1", "READY"), message("o2", "BILLED"));
+
+        verify(retryRecoverer, times(1)).holdBack(any(), any());
+        assertThat(staged).endsWith(new StatusUpdate("o2", "BILLED"));
+        verify(channel).basicNack(3, false, true);
+        verify(channel).basicNack(4, false, true);
+        verify(channel).basicAck(5, false);
+    }
+
+    private void process(Message... messages) {
+        batcher.process(List.of(messages), channel, StatusUpdate.class, StatusUpdate::orderId,
+                update -> update.status().toUpperCase(),
+                (OrderUnitOfWork work, StatusUpdate update) -> {
+                    if ("BOOM".equals(update.status())) {
+                        throw new IllegalArgumentException("cannot stage");
+                    }
+                    staged.add(update);
+                    return null;
+                },
+                update -> {
+                    if ("FAIL_SINGLY".equals(update.status())) {
+                        throw new IllegalStateException("single handling failed");
+                    }
+                    handledSingly.add(update);
+                });
+    }
+
+    private Message message(String orderId, String status) {
+        MessageProperties properties = new MessageProperties();
+        properties.setConsumerQueue(QUEUE);
+        properties.setDeliveryTag(++deliveryTag);
+        return converter.toMessage(new StatusUpdate(orderId, status), properties);
+    }
+
+    // As redelivered from a retry queue: same body and message id, fresh properties
+    private Message returned(Message message) {
+        MessageProperties properties = new MessageProperties();
+        properties.setConsumerQueue(QUEUE);
+        properties.setDeliveryTag(++deliveryTag);
+        properties.setContentType(message.getMessageProperties().getContentType());
+        properties.setMessageId(message.getMessageProperties().getMessageId());
+        properties.setHeader(RabbitMQConfig.RETRY_COUNT_HEADER, 1);
+        return new Message(message.getBody(), properties);
+    }
+}
@@ -0,0 +1,164 @@
+package com.swiftlogistics.orchestrator.service;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.swiftlogistics.orchestrator.cache.OrderVersionCache;
+import com.swiftlogistics.orchestrator.cache.RouteCache;
+import com.swiftlogistics.orchestrator.model.Order;
+import com.swiftlogistics.orchestrator.model.Route;
+import com.swiftlogistics.orchestrator.model.enums.EventSource;
+import com.swiftlogistics.orchestrator.model.enums.EventStatus;
+import com.swiftlogistics.orchestrator.model.enums.EventType;
+import com.swiftlogistics.orchestrator.model.enums.OrderStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderBatchTest {
+
+    private MongoTemplate mongoTemplate;
+    private EventService eventService;
+    private BulkOperations orderBulk;
+    private BulkOperations routeBulk;
+    private BulkWriteResult bulkResult;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        eventService = mock(EventService.class);
+        orderBulk = mock(BulkOperations.class, RETURNS_SELF);
+        routeBulk = mock(BulkOperations.class, RETURNS_SELF);
+        bulkResult = mock(BulkWriteResult.class);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(Order.class))).thenReturn(orderBulk);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(Route.class))).thenReturn(routeBulk);
+        when(orderBulk.execute()).thenReturn(bulkResult);
+    }
+
+    @Test
+    void commitAppliesEveryUnitWhenAllWritesMatch() {
+        stubFinds(List.of(order("o1", OrderStatus.NEW, 1), order("o2", OrderStatus.BILLED, 4)));
+        when(bulkResult.getMatchedCount()).thenReturn(2);
+
+        OrderBatch batch = batch("o1", "o2");
+        batch.begin("o1").transition(OrderStatus.BILLED)
+                .logSuccessEvent(EventType.BILLING_COMPLETED, EventSource.CMS_ADAPTER, "billed");
+        batch.begin("o2").transition(OrderStatus.PROCESSING);
+
+        assertThat(batch.commit()).containsExactlyInAnyOrder("o1", "o2");
+        verify(orderBulk, times(2)).updateOne(any(Query.class), any(Update.class));
+        verify(eventService).logEvent("o1", EventType.BILLING_COMPLETED, EventSource.CMS_ADAPTER, "billed",
+                EventStatus.SUCCESS);
+        // The orders are read once, not again after the write
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(Order.class));
+    }
+
+    @Test
+    void commitResolvesWhichGuardedWritesApplied() {
+        stubFinds(List.of(order("o1", OrderStatus.NEW, 1), order("o2", OrderStatus.NEW, 1)),
+                // o1 now has the target status and the version it wrote, o2 was changed by someone else
+                List.of(order("o1", OrderStatus.BILLED, 2), order("o2", OrderStatus.CANCELLED, 2)));
+        when(bulkResult.getMatchedCount()).thenReturn(1);
+
+        OrderBatch batch = batch("o1", "o2");
+        batch.begin("o1").transition(OrderStatus.BILLED)
+                .logSuccessEvent(EventType.BILLING_COMPLETED, EventSource.CMS_ADAPTER, "billed");
+        batch.begin("o2").transition(OrderStatus.BILLED)
+                .logSuccessEvent(EventType.BILLING_COMPLETED, EventSource.CMS_ADAPTER, "billed");
+
+        assertThat(batch.commit()).containsExactly("o1");
+        verify(eventService).logEvent(eq("o1"), any(), any(), anyString(), any());
+        verify(eventService, never()).logEvent(eq("o2"), any(), any(), anyString(), any());
+    }
+
+    @Test
+    void commitSkipsTransitionsThatDoNotApplyToTheOrderAsRead() {
+        stubFinds(List.of(order("o1", OrderStatus.DELIVERED, 7)));
+
+        OrderBatch batch = batch("o1");
+        batch.begin("o1").transition(OrderStatus.BILLED);
+
+        assertThat(batch.commit()).isEmpty();
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(Order.class));
+    }
+
+    @Test
+    void commitTreatsEventOnlyUnitsAsApplied() {
+        stubFinds(List.of(order("o1", OrderStatus.NEW, 1)));
+
+        OrderBatch batch = batch("o1");
+        batch.begin("o1").logPendingEvent(EventType.BILLING_PENDING, EventSource.CMS_ADAPTER, "pending");
+
+        assertThat(batch.commit()).containsExactly("o1");
+        verify(eventService).logEvent("o1", EventType.BILLING_PENDING, EventSource.CMS_ADAPTER, "pending",
+                EventStatus.PENDING);
+    }
+
+    @Test
+    void commitSavesRoutesBeforeOrdersAndRemovesThoseOfRejectedUnits() {
+        stubFinds(List.of(order("o1", OrderStatus.READY, 3), order("o2", OrderStatus.READY, 3)),
+                List.of(order("o1", OrderStatus.ROUTED, 4), order("o2", OrderStatus.CANCELLED, 4)));
+        when(bulkResult.getMatchedCount()).thenReturn(1);
+
+        OrderBatch batch = batch("o1", "o2");
+        batch.begin("o1").transition(OrderStatus.ROUTED).insertRoute(route("r1"));
+        batch.begin("o2").transition(OrderStatus.ROUTED).insertRoute(route("r2"));
+
+        assertThat(batch.commit()).containsExactly("o1");
+        InOrder order = inOrder(routeBulk, orderBulk, mongoTemplate);
+        order.verify(routeBulk).execute();
+        order.verify(orderBulk).execute();
+        order.verify(mongoTemplate).remove(any(Query.class), eq(Route.class));
+        verify(routeBulk, times(2)).replaceOne(any(Query.class), any(Route.class), any());
+    }
+
+    @Test
+    void beginRejectsUnknownAndDuplicateOrders() {
+        stubFinds(List.of(order("o1", OrderStatus.NEW, 1)));
+
+        OrderBatch batch = batch("o1", "missing");
+        batch.begin("o1");
+
+        assertThatThrownBy(() -> batch.begin("o1")).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> batch.begin("missing")).hasMessageContaining("Order not found");
+    }
+
+    @SafeVarargs
+    private void stubFinds(List<Order> first, List<Order>... more) {
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(first, more);
+    }
+
+    private OrderBatch batch(String... orderIds) {
+        OrderVersionCache orderVersionCache = mock(OrderVersionCache.class);
+        OrderTransitionService transitions = new OrderTransitionService(mongoTemplate, orderVersionCache);
+        return new OrderBatch(Set.of(orderIds), mongoTemplate,
+                (orderId, order) -> new OrderUnitOfWork(orderId, order, mongoTemplate, transitions,
+                        mock(OutboxService.class), eventService, mock(RouteCache.class), orderVersionCache));
+    }
+
+    private static Order order(String orderId, OrderStatus status, long version) {
+        return Order.builder().orderId(orderId).status(status).version(version).build();
+    }
+
+    private static Route route(String routeId) {
+        return Route.builder().routeId(routeId).waypoints(List.of("A", "B")).build();
+    }
+}
@@ -20,9 +20,11 @@ incoming_queue_args = {
     "x-dead-letter-routing-key": "route-planning.dlq"
 }
 OUTGOING_QUEUE = "route-updates"
+# Must match the orchestrator's declaration, single active consumer included
 outgoing_queue_args = {
     "x-dead-letter-exchange": "route.exchange.dlx",
-    "x-dead-letter-routing-key": "route-updates.dlq"
+    "x-dead-letter-routing-key": "route-updates.dlq",
+    "x-single-active-consumer": True
 }
 
 # --- Database Connection ---
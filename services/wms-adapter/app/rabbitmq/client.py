@@ -42,9 +42,11 @@ class RabbitMQClient:
             return
         connection, channel = self._new_publish_channel()
         try:
+            # Must match the orchestrator's declaration, single active consumer included
             queue_args = {
                 "x-dead-letter-exchange":  "warehouse.exchange.dlx",
-                "x-dead-letter-routing-key": "warehouse-updates.dlq"
+                "x-dead-letter-routing-key": "warehouse-updates.dlq",
+                "x-single-active-consumer": True
             }
             channel.queue_declare(queue=queue, durable=True, arguments=queue_args)
             channel.basic_publish(